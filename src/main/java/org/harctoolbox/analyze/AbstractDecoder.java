@@ -19,7 +19,10 @@ package org.harctoolbox.analyze;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.ThisCannotHappenException;
 import org.harctoolbox.irp.BitDirection;
@@ -34,6 +37,7 @@ import org.harctoolbox.irp.InvalidNameException;
 import org.harctoolbox.irp.IrStream;
 import org.harctoolbox.irp.IrStreamItem;
 import org.harctoolbox.irp.NameEngine;
+import org.harctoolbox.irp.NonUniqueBitCodeException;
 import org.harctoolbox.irp.Protocol;
 import org.harctoolbox.irp.RepeatMarker;
 
@@ -41,30 +45,34 @@ public abstract class AbstractDecoder {
 
     //private static final Logger logger = Logger.getLogger(AbstractDecoder.class.getName());
 
-    static final Class<?>[] decoders = {
-        TrivialDecoder.class,
-        Pwm2Decoder.class,
-        Pwm4Decoder.class,
-        Pwm4AltDecoder.class,
-        XmpDecoder.class,
-        BiphaseDecoder.class,
-        BiphaseInvertDecoder.class,
-        BiphaseWithDurationDecoder.class,
-        BiphaseWithDurationInvertDecoder.class,
-        BiphaseWithTwoDurationsDecoder.class,
-        BiphaseWithTwoDurationsInvertDecoder.class,
-        BiphaseWithDoubleToggleDecoder.class,
-        SerialDecoder.class,
-    };
-
-    protected static final int NUMBERDECODERS = decoders.length;
+    /**
+     * The available decoders, in the order they are tried, keyed by their simple class names.
+     */
+    static final Map<String, Factory> decoders = Collections.unmodifiableMap(mkDecoders());
+
+    protected static final int NUMBERDECODERS = decoders.size();
     protected static final int CANNOT_MATCH = Integer.MIN_VALUE;
 
+    private static Map<String, Factory> mkDecoders() {
+        Map<String, Factory> map = new LinkedHashMap<>(16);
+        map.put(TrivialDecoder.class.getSimpleName(), TrivialDecoder::new);
+        map.put(Pwm2Decoder.class.getSimpleName(), Pwm2Decoder::new);
+        map.put(Pwm4Decoder.class.getSimpleName(), Pwm4Decoder::new);
+        map.put(Pwm4AltDecoder.class.getSimpleName(), Pwm4AltDecoder::new);
+        map.put(XmpDecoder.class.getSimpleName(), XmpDecoder::new);
+        map.put(BiphaseDecoder.class.getSimpleName(), BiphaseDecoder::new);
+        map.put(BiphaseInvertDecoder.class.getSimpleName(), BiphaseInvertDecoder::new);
+        map.put(BiphaseWithDurationDecoder.class.getSimpleName(), BiphaseWithDurationDecoder::new);
+        map.put(BiphaseWithDurationInvertDecoder.class.getSimpleName(), BiphaseWithDurationInvertDecoder::new);
+        map.put(BiphaseWithTwoDurationsDecoder.class.getSimpleName(), BiphaseWithTwoDurationsDecoder::new);
+        map.put(BiphaseWithTwoDurationsInvertDecoder.class.getSimpleName(), BiphaseWithTwoDurationsInvertDecoder::new);
+        map.put(BiphaseWithDoubleToggleDecoder.class.getSimpleName(), BiphaseWithDoubleToggleDecoder::new);
+        map.put(SerialDecoder.class.getSimpleName(), SerialDecoder::new);
+        return map;
+    }
+
     public static List<String> decoderNames() {
-        List<String> result = new ArrayList<>(NUMBERDECODERS);
-        for (Class<?> decoder : decoders)
-            result.add(decoder.getSimpleName());
-        return result;
+        return new ArrayList<>(decoders.keySet());
     }
 
     protected NameEngine nameEngine;
@@ -298,4 +306,13 @@ public abstract class AbstractDecoder {
             return noBits == 0;
         }
     }
+
+    /**
+     * Creates a decoder for the data of an Analyzer.
+     * Since a decoder carries state while parsing, every thread needs its own instances.
+     */
+    @FunctionalInterface
+    interface Factory {
+        AbstractDecoder newDecoder(Analyzer analyzer, Analyzer.AnalyzerParams params) throws DecodeException, NonUniqueBitCodeException;
+    }
 }
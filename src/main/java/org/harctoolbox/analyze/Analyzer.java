@@ -18,18 +18,20 @@ this program. If not, see http://www.gnu.org/licenses/.
 package org.harctoolbox.analyze;
 
 import java.io.PrintStream;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.IrSequence;
@@ -39,6 +41,7 @@ import org.harctoolbox.ircore.OddSequenceLengthException;
 import org.harctoolbox.ircore.ThisCannotHappenException;
 import org.harctoolbox.irp.BitDirection;
 import org.harctoolbox.irp.GeneralSpec;
+import org.harctoolbox.irp.NonUniqueBitCodeException;
 import org.harctoolbox.irp.Protocol;
 
 public final class Analyzer extends Cleaner {
@@ -69,7 +72,8 @@ public final class Analyzer extends Cleaner {
     }
 
     private List<Burst> pairs;
-    private final RepeatFinder.RepeatFinderData[] repeatFinderData;
+    private RepeatFinder.RepeatFinderData[] repeatFinderData;
+    private final boolean invokeRepeatFinder;
     private Double frequency;
     private List<Burst> sortedBursts;
 
@@ -90,6 +94,7 @@ public final class Analyzer extends Cleaner {
         if (frequency == null)
             logger.log(Level.FINE, String.format(Locale.US, "No frequency given, assuming default frequency = %d Hz", (int) ModulatedIrSequence.DEFAULT_FREQUENCY));
         this.frequency = frequency;
+        this.invokeRepeatFinder = invokeRepeatFinder;
         repeatFinderData = new RepeatFinder.RepeatFinderData[irSequenceList.size()];
         for (int i = 0; i < irSequenceList.size(); i++)
             repeatFinderData[i] = getRepeatFinderData(invokeRepeatFinder, i);
@@ -124,6 +129,26 @@ public final class Analyzer extends Cleaner {
        this(irSignal, null, null);
     }
 
+    /**
+     * Adds another sequence, giving the same result as if it had been given to the constructor.
+     * The data is cleaned as described in {@link Cleaner#addSequence(IrSequence)}.
+     * The repeat finder is run on the new sequence only, if the timings table is unchanged;
+     * otherwise the cleaned durations of the previous sequences may have changed, and it is rerun on all sequences,
+     * at a cost of O(total length).
+     * @param irSequence
+     * @throws InvalidArgumentException if the sequence contains a duration of length 0.
+     * @throws UnsupportedOperationException if the Analyzer was constructed from an IrSignal.
+     */
+    @Override
+    public void addSequence(IrSequence irSequence) throws InvalidArgumentException {
+        int oldNoSequences = getNoSequences();
+        boolean unchanged = addData(irSequence.toInts());
+        repeatFinderData = Arrays.copyOf(repeatFinderData, getNoSequences());
+        for (int i = unchanged || !invokeRepeatFinder ? oldNoSequences : 0; i < getNoSequences(); i++)
+            repeatFinderData[i] = getRepeatFinderData(invokeRepeatFinder, i);
+        createPairs();
+    }
+
     /**
      * Return bursts order after their frequency.
      * @param i
@@ -192,45 +217,39 @@ public final class Analyzer extends Cleaner {
     }
 
 
-    private List<Class<?>> selectDecoderClasses(String decoderPattern, boolean regexp) throws NoDecoderMatchException {
-        List<Class<?>> decoders = regexp ? selectDecoderClassesRegexp(decoderPattern) : selectDecoderClassesSubstring(decoderPattern);
+    private List<Map.Entry<String, AbstractDecoder.Factory>> selectDecoders(String decoderPattern, boolean regexp) throws NoDecoderMatchException {
+        List<Map.Entry<String, AbstractDecoder.Factory>> decoders = regexp ? selectDecodersRegexp(decoderPattern) : selectDecodersSubstring(decoderPattern);
         if (decoders.isEmpty())
             throw new NoDecoderMatchException(decoderPattern, regexp);
         return decoders;
     }
 
-    private List<Class<?>> selectDecoderClassesRegexp(String decoderPattern) {
+    private List<Map.Entry<String, AbstractDecoder.Factory>> selectDecodersRegexp(String decoderPattern) {
         Pattern pattern = decoderPattern != null ? Pattern.compile(decoderPattern, Pattern.CASE_INSENSITIVE) : null;
-        List<Class<?>> decoders = new ArrayList<>(AbstractDecoder.NUMBERDECODERS);
-        for (Class<?> decoderClass : AbstractDecoder.decoders)
-            if (pattern == null || pattern.matcher(decoderClass.getSimpleName()).matches())
-                decoders.add(decoderClass);
+        List<Map.Entry<String, AbstractDecoder.Factory>> decoders = new ArrayList<>(AbstractDecoder.NUMBERDECODERS);
+        for (Map.Entry<String, AbstractDecoder.Factory> entry : AbstractDecoder.decoders.entrySet())
+            if (pattern == null || pattern.matcher(entry.getKey()).matches())
+                decoders.add(entry);
         return decoders;
     }
 
-    private List<Class<?>> selectDecoderClassesSubstring(String decoderPattern) {
-        List<Class<?>> decoders = new ArrayList<>(AbstractDecoder.NUMBERDECODERS);
-        for (Class<?> decoderClass : AbstractDecoder.decoders)
+    private List<Map.Entry<String, AbstractDecoder.Factory>> selectDecodersSubstring(String decoderPattern) {
+        List<Map.Entry<String, AbstractDecoder.Factory>> decoders = new ArrayList<>(AbstractDecoder.NUMBERDECODERS);
+        for (Map.Entry<String, AbstractDecoder.Factory> entry : AbstractDecoder.decoders.entrySet())
             if (decoderPattern == null
-                    || decoderClass.getSimpleName().regionMatches(true, 0, decoderPattern, 0, decoderPattern.length()))
-                decoders.add(decoderClass);
+                    || entry.getKey().regionMatches(true, 0, decoderPattern, 0, decoderPattern.length()))
+                decoders.add(entry);
         return decoders;
     }
 
-    private List<AbstractDecoder> setupDecoders(Analyzer.AnalyzerParams params, String decoderPattern, boolean regexp) throws NoDecoderMatchException {
-        List<Class<?>> decoderClasses = selectDecoderClasses(decoderPattern, regexp);
-        List<AbstractDecoder> decoders = new ArrayList<>(AbstractDecoder.NUMBERDECODERS);
-        decoderClasses.forEach((decoderClass) -> {
+    private List<AbstractDecoder> setupDecoders(Analyzer.AnalyzerParams params, List<Map.Entry<String, AbstractDecoder.Factory>> factories) {
+        List<AbstractDecoder> decoders = new ArrayList<>(factories.size());
+        factories.forEach((entry) -> {
             try {
-                Constructor<?> constructor = decoderClass.getConstructor(Analyzer.class, AnalyzerParams.class);
-                AbstractDecoder decoder = (AbstractDecoder) constructor.newInstance(this, params);
-                decoders.add(decoder);
-            } catch (NoSuchMethodException | SecurityException | IllegalAccessException | IllegalArgumentException | InstantiationException ex) {
-                // consider this as programming error
-                throw new ThisCannotHappenException(ex);
-            } catch (InvocationTargetException ex) {
+                decoders.add(entry.getValue().newDecoder(this, params));
+            } catch (DecodeException | NonUniqueBitCodeException | RuntimeException ex) {
                 // Likely not a fatal problem, the decoder just did not accept the data.
-                logger.log(Level.FINE, String.format("Decoder %1$s failed: %2$s(%3$s)", decoderClass.getSimpleName(), ex.getTargetException().getClass().getSimpleName(), ex.getTargetException().getMessage()));
+                logger.log(Level.FINE, String.format("Decoder %1$s failed: %2$s(%3$s)", entry.getKey(), ex.getClass().getSimpleName(), ex.getMessage()));
             }
         });
         return decoders;
@@ -262,45 +281,114 @@ public final class Analyzer extends Cleaner {
         return frequency;
     }
 
+    /**
+     * Runs the selected decoders on all sequences. Sequences, as well as the decoders for a sequence, are processed in parallel.
+     * @param params
+     * @param decoderPattern
+     * @param regexp
+     * @return For each sequence, the protocols found, in the order of the decoders.
+     * @throws NoDecoderMatchException
+     */
     public List<List<Protocol>> searchAllProtocols(AnalyzerParams params, String decoderPattern, boolean regexp) throws NoDecoderMatchException {
-        List<AbstractDecoder> decoders = setupDecoders(params, decoderPattern, regexp);
-        List<List<Protocol>> result = new ArrayList<>(getNoSequences());
-        for (int i = 0; i < getNoSequences(); i++)
-            result.add(searchProtocols(decoders, i));
-
-        return result;
+        List<Map.Entry<String, AbstractDecoder.Factory>> factories = selectDecoders(decoderPattern, regexp);
+        return sequenceNumbers().mapToObj((int i) -> searchProtocols(setupDecoders(params, factories), i)).collect(Collectors.toList());
     }
 
     public List<Protocol> searchBestProtocol(AnalyzerParams params, String decoderPattern, boolean regexp) throws NoDecoderMatchException {
-        List<AbstractDecoder> decoders = setupDecoders(params, decoderPattern, regexp);
-        List<Protocol> result = new ArrayList<>(getNoSequences());
-        for (int i = 0; i < getNoSequences(); i++) {
-            Protocol best = searchBestProtocol(decoders, i);
-            if (best != null)
-                result.add(best);
-        }
-
-        return result;
+        List<Map.Entry<String, AbstractDecoder.Factory>> factories = selectDecoders(decoderPattern, regexp);
+        return sequenceNumbers().mapToObj((int i) -> searchBestProtocol(setupDecoders(params, factories), i)).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     public List<Protocol> searchBestProtocol(AnalyzerParams analyzerParams) throws NoDecoderMatchException {
         return searchBestProtocol(analyzerParams, null, false);
     }
 
-    public List<Protocol> searchProtocols(List<AbstractDecoder> decoders, int number) {
-        List<Protocol> protocols = new ArrayList<>(decoders.size());
-        decoders.forEach((decoder) -> {
-            try {
-                Protocol protocol = decoder.parse(number, isSignalMode());
-                protocols.add(protocol);
-                logger.log(Level.FINE, "{0}: {1} w = {2}", new Object[]{decoder.name(), protocol.toIrpString(10), protocol.weight()});
-            } catch (DecodeException ex) {
-                logger.log(Level.FINE, "{0}: {1}", new Object[]{decoder.name(), ex.getMessage()});
-            } catch (AnalyzerParams.TooFewParameterNamesException ex) {
-                logger.log(Level.FINE, "{0}: Too few parameter names", new Object[]{decoder.name()});
+
+    /**
+     * Bulk analysis: finds the decoder that decodes the most sequences, in the case of a tie the one with the lowest total weight,
+     * and uses it for all sequences it decodes. This way, all signals of e.g. a remote get the same bitspec and timing.
+     * Sequences not decoded by that decoder get their individually best protocol.
+     * @param params
+     * @param decoderPattern
+     * @param regexp
+     * @return One protocol for every decodable sequence.
+     * @throws NoDecoderMatchException
+     */
+    public List<Protocol> searchCommonProtocol(AnalyzerParams params, String decoderPattern, boolean regexp) throws NoDecoderMatchException {
+        List<Map.Entry<String, AbstractDecoder.Factory>> factories = selectDecoders(decoderPattern, regexp);
+        List<Map<String, Protocol>> table = sequenceNumbers().mapToObj((int i) -> {
+            return setupDecoders(params, factories).parallelStream()
+                    .map((decoder) -> new AbstractMap.SimpleImmutableEntry<>(decoder.name(), parse(decoder, i)))
+                    .filter((entry) -> entry.getValue() != null)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }).collect(Collectors.toList());
+
+        String common = null;
+        int commonCount = 0;
+        long commonWeight = Long.MAX_VALUE;
+        for (Map.Entry<String, AbstractDecoder.Factory> factory : factories) {
+            int count = 0;
+            long weight = 0L;
+            for (Map<String, Protocol> protocols : table) {
+                Protocol protocol = protocols.get(factory.getKey());
+                if (protocol != null) {
+                    count++;
+                    weight += protocol.weight();
+                }
             }
-        });
-        return protocols;
+            if (count > commonCount || (count > 0 && count == commonCount && weight < commonWeight)) {
+                common = factory.getKey();
+                commonCount = count;
+                commonWeight = weight;
+            }
+        }
+        logger.log(Level.FINE, "Common decoder: {0}, decodes {1} of {2} sequences", new Object[]{common, commonCount, table.size()});
+
+        List<Protocol> result = new ArrayList<>(table.size());
+        for (int i = 0; i < table.size(); i++) {
+            Map<String, Protocol> protocols = table.get(i);
+            Protocol protocol = protocols.get(common);
+            if (protocol == null) {
+                List<Protocol> candidates = new ArrayList<>(protocols.size());
+                factories.stream().map((factory) -> protocols.get(factory.getKey())).filter(Objects::nonNull).forEachOrdered(candidates::add);
+                protocol = selectBestProtocol(candidates);
+                if (protocol != null)
+                    logger.log(Level.INFO, "Sequence #{0} not decodable by {1}, using {2}", new Object[]{i, common, protocol.getDecoderName()});
+            }
+            if (protocol != null)
+                result.add(protocol);
+        }
+        return result;
+    }
+
+    // Decoders carry state while parsing, so every sequence gets its own decoder instances.
+    private IntStream sequenceNumbers() {
+        IntStream numbers = IntStream.range(0, getNoSequences());
+        return getNoSequences() > 1 ? numbers.parallel() : numbers;
+    }
+
+    private Protocol parse(AbstractDecoder decoder, int number) {
+        try {
+            Protocol protocol = decoder.parse(number, isSignalMode());
+            logger.log(Level.FINE, "{0}: {1} w = {2}", new Object[]{decoder.name(), protocol.toIrpString(10), protocol.weight()});
+            return protocol;
+        } catch (DecodeException ex) {
+            logger.log(Level.FINE, "{0}: {1}", new Object[]{decoder.name(), ex.getMessage()});
+        } catch (AnalyzerParams.TooFewParameterNamesException ex) {
+            logger.log(Level.FINE, "{0}: Too few parameter names", new Object[]{decoder.name()});
+        }
+        return null;
+    }
+
+    /**
+     * Runs the decoders, in parallel, on one sequence.
+     * The decoders must not be used concurrently by other threads.
+     * @param decoders
+     * @param number
+     * @return The protocols found, in the order of the decoders.
+     */
+    public List<Protocol> searchProtocols(List<AbstractDecoder> decoders, int number) {
+        return decoders.parallelStream().map((decoder) -> parse(decoder, number)).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
     public Protocol searchBestProtocol(List<AbstractDecoder> decoders, int number) {
@@ -38,9 +38,10 @@ public class Cleaner {
 
     private final static Logger logger = Logger.getLogger(Cleaner.class.getName());
 
-    private final static int NUMBEROFINITIALTIMINGSCAPACITY = 20;
     private static final int NO_LETTERS = 26;
     private static final int MAXSPAN = 4;
+    private static final int DIRECTINDEXFACTOR = 4;
+    private static final int DIRECTINDEXMIN = 1024;
 
     public static IrSequence clean(IrSequence irSequence, Double absoluteTolerance, Double relativeTolerance) throws InvalidArgumentException {
         Cleaner cleaner = new Cleaner(irSequence, absoluteTolerance, relativeTolerance);
@@ -74,17 +75,27 @@ public class Cleaner {
                 : new String(new char[]{(char) ('A' + n)});
     }
 
-    private int rawData[];
-    protected List<Integer> timings;
-    private HashMap<Integer, HistoPair> rawHistogram;
-    private HashMap<Integer, HistoPair> cleanedHistogram;
-    protected int indexData[];
-    private int[] sorted;
-    private HashMap<Integer, Integer> lookDownTable;
+    private int rawData[]; // capacity may exceed rawLength
+    private int rawLength;
+    protected int[] timings;
+    private int[] distinctDurations; // sorted, distinct raw durations
+    private int[] rawFlashes; // number of flashes, indexed as distinctDurations
+    private int[] rawGaps; // number of gaps, indexed as distinctDurations
+    private int[] distinctTimingIndex; // index in timings, indexed as distinctDurations
+    private int[] cleanedFlashes; // number of flashes, indexed as timings
+    private int[] cleanedGaps; // number of gaps, indexed as timings
+    private int[] flashRow; // row in pairCounts, indexed as timings, -1 if not a flash
+    private int[] gapColumn; // column in pairCounts, indexed as timings, -1 if not a gap
+    private int[][] pairCounts; // number of flash-gap pairs, flashes x gaps
+    private int[] rawIndexData; // index in distinctDurations, indexed as rawData, capacity may exceed rawLength; null if stale
+    protected int indexData[]; // index in timings, indexed as rawData, capacity may exceed rawLength
     private List<Integer> gapsSortedAfterFrequency;
     private List<Integer> flashesSortedAfterFrequency;
-    private int[] indices; // ending indicies
+    private int[] indices; // ending indicies, capacity may exceed noSequences
+    private int noSequences;
     private boolean signalMode;
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
 
     public Cleaner(IrSequence irSequence) throws InvalidArgumentException {
         this(irSequence, IrCoreUtils.DEFAULT_ABSOLUTE_TOLERANCE, IrCoreUtils.DEFAULT_RELATIVE_TOLERANCE);
@@ -95,20 +106,160 @@ public class Cleaner {
     }
 
     protected Cleaner(int[] data, int[] indices, boolean signalMode, Double absoluteTolerance, Double relativeTolerance) throws InvalidArgumentException {
-        for (int x : data)
-            if (x == 0)
-                throw new InvalidArgumentException("Data contains duration of length 0");
-
+        checkData(data);
         rawData = data;
+        rawLength = data.length;
         this.indices = indices;
+        noSequences = indices.length;
         this.signalMode = signalMode;
+        this.relativeTolerance = IrCoreUtils.getRelativeTolerance(relativeTolerance);
+        this.absoluteTolerance = IrCoreUtils.getAbsoluteTolerance(absoluteTolerance);
         createRawHistogram();
-        double relTol = IrCoreUtils.getRelativeTolerance(relativeTolerance);
-        double absTol = IrCoreUtils.getAbsoluteTolerance(absoluteTolerance);
-        List<Integer> dumbTimings = createDumbTimings(absTol, relTol);
-        improveTimingsTable(dumbTimings, absTol, relTol);
+        createTimings();
+    }
+
+    private static void checkData(int[] data) throws InvalidArgumentException {
+        for (int x : data)
+            if (x == 0)
+                throw new InvalidArgumentException("Data contains duration of length 0");
+    }
+
+    /**
+     * Adds another sequence to the data. The result is the same as if the sequence had been given to the constructor.
+     * The raw histogram is merged rather than rebuilt, and the clustering into timings, which depends on all data,
+     * is redone over the distinct durations. If the new data leaves the partition of the old durations into timings
+     * unchanged (only the averages may move), only the new data is cleaned and counted, at a cost proportional
+     * to its length, and the number of distinct durations and timings.
+     * Otherwise, the cleaned data and the pair counts are recomputed from all data, at a cost of O(total length).
+     * @param irSequence
+     * @throws InvalidArgumentException if the sequence contains a duration of length 0.
+     * @throws UnsupportedOperationException in signal mode.
+     */
+    public void addSequence(IrSequence irSequence) throws InvalidArgumentException {
+        addData(irSequence.toInts());
+    }
+
+    /**
+     * Adds data forming a new sequence, and updates the histograms and the timings.
+     * @param data
+     * @return true if the cleaned durations of the previous data are unchanged.
+     * @throws InvalidArgumentException
+     */
+    protected boolean addData(int[] data) throws InvalidArgumentException {
+        if (signalMode)
+            throw new UnsupportedOperationException("Cannot add sequences in signal mode");
+        checkData(data);
+        int[] oldTimings = timings;
+        int[] oldDistinctTimingIndex = distinctTimingIndex;
+        int[] newRawIndices = new int[data.length];
+        int[] oldToNew = mergeRawHistogram(data, newRawIndices);
+
+        int oldLength = rawLength;
+        rawData = ensureCapacity(rawData, rawLength + data.length);
+        System.arraycopy(data, 0, rawData, rawLength, data.length);
+        rawLength += data.length;
+        indices = ensureCapacity(indices, noSequences + 1);
+        indices[noSequences++] = rawLength;
+
+        createTimingsTable();
+        if (samePartition(oldTimings, oldDistinctTimingIndex, oldToNew)) {
+            extendCookedData(oldLength, newRawIndices);
+            createCleanHistogram();
+            extendPairCounts(oldLength);
+            createSortedGapsAndFlashes();
+        } else
+            createCleanedData();
+
+        for (int i = 0; i < oldToNew.length; i++)
+            if (oldTimings[oldDistinctTimingIndex[i]] != timings[distinctTimingIndex[oldToNew[i]]])
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the array, or, if it is shorter than minCapacity, a copy with at least doubled capacity.
+     */
+    private static int[] ensureCapacity(int[] array, int minCapacity) {
+        return array.length >= minCapacity ? array : Arrays.copyOf(array, Math.max(minCapacity, 2 * array.length));
+    }
+
+    /**
+     * @return true if the old distinct durations are mapped to the same timing indices as before, and no timing has been added.
+     */
+    private boolean samePartition(int[] oldTimings, int[] oldDistinctTimingIndex, int[] oldToNew) {
+        if (timings.length != oldTimings.length)
+            return false;
+        for (int i = 0; i < oldToNew.length; i++)
+            if (oldDistinctTimingIndex[i] != distinctTimingIndex[oldToNew[i]])
+                return false;
+        return true;
+    }
+
+    /**
+     * Merges the histogram of the argument into the raw histogram.
+     * If no new distinct durations occur, rawIndexData is extended, otherwise it is marked stale.
+     * @param newRawIndices receives the indices in distinctDurations of the argument.
+     * @return mapping from old to new indices in distinctDurations.
+     */
+    private int[] mergeRawHistogram(int[] data, int[] newRawIndices) {
+        int[] sorted = data.clone();
+        Arrays.sort(sorted);
+        int[] merged = new int[distinctDurations.length + sorted.length];
+        int[] oldToNew = new int[distinctDurations.length];
+        int noMerged = 0;
+        int i = 0;
+        int j = 0;
+        while (i < distinctDurations.length || j < sorted.length) {
+            int next = j == sorted.length || (i < distinctDurations.length && distinctDurations[i] <= sorted[j])
+                    ? distinctDurations[i] : sorted[j];
+            if (noMerged == 0 || merged[noMerged - 1] != next)
+                merged[noMerged++] = next;
+            if (i < distinctDurations.length && distinctDurations[i] == next)
+                oldToNew[i++] = noMerged - 1;
+            while (j < sorted.length && sorted[j] == next)
+                j++;
+        }
+        distinctDurations = Arrays.copyOf(merged, noMerged);
+
+        int[] flashes = new int[noMerged];
+        int[] gaps = new int[noMerged];
+        for (int k = 0; k < oldToNew.length; k++) {
+            flashes[oldToNew[k]] = rawFlashes[k];
+            gaps[oldToNew[k]] = rawGaps[k];
+        }
+        for (int k = 0; k < data.length; k++) {
+            int index = Arrays.binarySearch(distinctDurations, data[k]);
+            newRawIndices[k] = index;
+            // the parity of the positions is preserved, since all sequences have even length
+            if (k % 2 == 0)
+                flashes[index]++;
+            else
+                gaps[index]++;
+        }
+        rawFlashes = flashes;
+        rawGaps = gaps;
+        if (noMerged == oldToNew.length && rawIndexData != null) { // oldToNew is the identity
+            rawIndexData = ensureCapacity(rawIndexData, rawLength + data.length);
+            System.arraycopy(newRawIndices, 0, rawIndexData, rawLength, data.length);
+        } else
+            rawIndexData = null;
+        return oldToNew;
+    }
+
+    private void createTimings() {
+        createTimingsTable();
+        createCleanedData();
+    }
+
+    private void createTimingsTable() {
+        int[] dumbTimings = createDumbTimings(absoluteTolerance, relativeTolerance);
+        improveTimingsTable(dumbTimings, absoluteTolerance, relativeTolerance);
+    }
+
+    private void createCleanedData() {
         createCookedData();
         createCleanHistogram();
+        createPairCounts();
         createSortedGapsAndFlashes();
     }
 
@@ -119,78 +270,150 @@ public class Cleaner {
         return signalMode;
     }
 
+    /**
+     * Counts the flashes and gaps of every distinct duration, either by direct indexing on the durations,
+     * when their range is not large compared to the number of durations, or by sorting.
+     * As a side effect, rawIndexData is filled with the indices in distinctDurations.
+     */
     private void createRawHistogram() {
-        rawHistogram = new HashMap<>(NUMBEROFINITIALTIMINGSCAPACITY);
-        for (int i = 0; i < rawData.length; i++) {
-            boolean isFlash = i % 2 == 0;
-            int duration = rawData[i];
-            if (!rawHistogram.containsKey(duration))
-                rawHistogram.put(duration, new HistoPair());
-            rawHistogram.get(duration).increment(isFlash);
+        int max = 0;
+        for (int i = 0; i < rawLength; i++)
+            max = Math.max(max, rawData[i]);
+        rawIndexData = new int[rawLength];
+        if (max < DIRECTINDEXFACTOR * (long) rawLength + DIRECTINDEXMIN)
+            createRawHistogramDirect(max);
+        else
+            createRawHistogramSorted();
+    }
+
+    private void createRawHistogramDirect(int max) {
+        int[] flashes = new int[max + 1];
+        int[] gaps = new int[max + 1];
+        for (int i = 0; i < rawLength; i += 2)
+            flashes[rawData[i]]++;
+        for (int i = 1; i < rawLength; i += 2)
+            gaps[rawData[i]]++;
+
+        int noDistinct = 0;
+        for (int d = 0; d <= max; d++)
+            if (flashes[d] + gaps[d] > 0)
+                noDistinct++;
+        distinctDurations = new int[noDistinct];
+        rawFlashes = new int[noDistinct];
+        rawGaps = new int[noDistinct];
+        int index = 0;
+        for (int d = 0; d <= max; d++) {
+            if (flashes[d] + gaps[d] > 0) {
+                distinctDurations[index] = d;
+                rawFlashes[index] = flashes[d];
+                rawGaps[index] = gaps[d];
+                flashes[d] = index; // reuse as lookup table
+                index++;
+            }
         }
+        for (int i = 0; i < rawLength; i++)
+            rawIndexData[i] = flashes[rawData[i]];
     }
 
-    private ArrayList<Integer> createDumbTimings(double absoluteTolerance, double relativeTolerance) {
-        ArrayList<Integer> dumbTimings = new ArrayList<>(rawData.length);
-        sorted = rawData.clone();
+    private void createRawHistogramSorted() {
+        int[] sorted = Arrays.copyOf(rawData, rawLength);
         Arrays.sort(sorted);
+        int[] distinct = new int[sorted.length];
+        int noDistinct = 0;
+        for (int d : sorted)
+            if (noDistinct == 0 || distinct[noDistinct - 1] != d)
+                distinct[noDistinct++] = d;
+        distinctDurations = Arrays.copyOf(distinct, noDistinct);
+
+        rawFlashes = new int[noDistinct];
+        rawGaps = new int[noDistinct];
+        for (int i = 0; i < rawLength; i++) {
+            int index = Arrays.binarySearch(distinctDurations, rawData[i]);
+            rawIndexData[i] = index;
+            if (i % 2 == 0)
+                rawFlashes[index]++;
+            else
+                rawGaps[index]++;
+        }
+    }
+
+    private int[] createDumbTimings(double absoluteTolerance, double relativeTolerance) {
+        int[] dumbTimings = new int[distinctDurations.length];
+        int noTimings = 0;
         int last = -99999;
-        for (int d : sorted) {
+        for (int d : distinctDurations) {
             if (!IrCoreUtils.approximatelyEquals(d, last, (int) absoluteTolerance, relativeTolerance)) {
                 int representative = d /*+ (int) absoluteTolerance*/;
-                dumbTimings.add(representative);
+                dumbTimings[noTimings++] = representative;
                 last = representative;
             }
         }
-        return dumbTimings;
+        return Arrays.copyOf(dumbTimings, noTimings);
     }
 
-    private void improveTimingsTable(List<Integer> dumbTimings, double absoluteTolerance, double relativeTolerance) {
-        lookDownTable = new HashMap<>(NUMBEROFINITIALTIMINGSCAPACITY);
-        timings = new ArrayList<>(NUMBEROFINITIALTIMINGSCAPACITY);
-        int indexInSortedTimings = 0;
-        for (int timingsIndex = 0; timingsIndex < dumbTimings.size(); timingsIndex++) {
-            int dumbTiming = dumbTimings.get(timingsIndex);
+    private void improveTimingsTable(int[] dumbTimings, double absoluteTolerance, double relativeTolerance) {
+        distinctTimingIndex = new int[distinctDurations.length];
+        timings = new int[dumbTimings.length];
+        int indexInDistinct = 0;
+        for (int timingsIndex = 0; timingsIndex < dumbTimings.length; timingsIndex++) {
+            int dumbTiming = dumbTimings[timingsIndex];
             long sum = 0;
             int terms = 0;
-            int lastDuration = -1;
-            while (indexInSortedTimings < sorted.length
-                    && IrCoreUtils.approximatelyEquals(dumbTiming, sorted[indexInSortedTimings], (int) absoluteTolerance, relativeTolerance)) {
-                int duration = sorted[indexInSortedTimings];
-                indexInSortedTimings++;
-                if (duration == lastDuration)
-                    continue;
-                lastDuration = duration;
-                int noHits = rawHistogram.get(duration).total();
+            while (indexInDistinct < distinctDurations.length
+                    && IrCoreUtils.approximatelyEquals(dumbTiming, distinctDurations[indexInDistinct], (int) absoluteTolerance, relativeTolerance)) {
+                int duration = distinctDurations[indexInDistinct];
+                int noHits = rawFlashes[indexInDistinct] + rawGaps[indexInDistinct];
                 long term = noHits * duration;
                 sum += term;
                 if (term < 0 || sum < 0)
                     throw new ThisCannotHappenException("Internal overflow error!!! Please report.");
                 terms += noHits;
-                lookDownTable.put(duration, timingsIndex);
+                distinctTimingIndex[indexInDistinct] = timingsIndex;
+                indexInDistinct++;
             }
             int average = (int) Math.round(sum/(double)terms);
-            timings.add(average);
-            lookDownTable.put(average, timingsIndex);
+            timings[timingsIndex] = average;
         }
     }
 
     private void createCookedData() {
-        indexData = new int[rawData.length];
-        for (int i = 0; i < rawData.length; i++)
-            indexData[i] = lookDownTable.get(rawData[i]);
+        if (rawIndexData == null) {
+            rawIndexData = new int[rawLength];
+            for (int i = 0; i < rawLength; i++)
+                rawIndexData[i] = Arrays.binarySearch(distinctDurations, rawData[i]);
+        }
+        indexData = new int[rawLength];
+        for (int i = 0; i < rawLength; i++)
+            indexData[i] = distinctTimingIndex[rawIndexData[i]];
+    }
+
+    /**
+     * Appends the cleaned new data, starting at oldLength, to indexData.
+     */
+    private void extendCookedData(int oldLength, int[] newRawIndices) {
+        indexData = ensureCapacity(indexData, rawLength);
+        for (int i = 0; i < newRawIndices.length; i++)
+            indexData[oldLength + i] = distinctTimingIndex[newRawIndices[i]];
     }
 
     private void createCleanHistogram() {
-        cleanedHistogram = new LinkedHashMap<>(NUMBEROFINITIALTIMINGSCAPACITY);
-        timings.stream().forEach((duration) -> {
-            cleanedHistogram.put(duration, new HistoPair());
-        });
-        rawHistogram.entrySet().stream().forEach((kvp) -> {
-            int index = lookDownTable.get(kvp.getKey());
-            Integer cleanedDuration = timings.get(index);
-            cleanedHistogram.get(cleanedDuration).add(kvp.getValue());
-        });
+        cleanedFlashes = new int[timings.length];
+        cleanedGaps = new int[timings.length];
+        for (int i = 0; i < distinctDurations.length; i++) {
+            int index = distinctTimingIndex[i];
+            cleanedFlashes[index] += rawFlashes[i];
+            cleanedGaps[index] += rawGaps[i];
+        }
+    }
+
+    /**
+     * Returns the index in timings of the argument, which must be one of the timings.
+     */
+    private int timingIndex(int duration) {
+        int index = Arrays.binarySearch(timings, duration);
+        if (index < 0)
+            throw new IllegalArgumentException("Not a cleaned timing: " + duration);
+        return index;
     }
 
     public String getName(int duration) {
@@ -206,13 +429,13 @@ public class Cleaner {
     }
 
     private int[] toDurations() {
-        return toDurations(0, rawData.length);
+        return toDurations(0, rawLength);
     }
 
     protected int[] toDurations(int beg, int length) {
         int[] data = new int[length];
         for (int i = 0; i < length; i++)
-            data[i] = timings.get(indexData[beg + i]);
+            data[i] = timings[indexData[beg + i]];
         return data;
     }
 
@@ -228,29 +451,39 @@ public class Cleaner {
     }
 
     public String toTimingsString() {
-        return toTimingsString(0, rawData.length);
+        return toTimingsString(0, rawLength);
     }
 
     protected int getTotalDuration(int beg, int length) {
         int sum = 0;
         for (int i = beg; i < beg + length; i++)
-            sum += timings.get(indexData[i]);
+            sum += timings[indexData[i]];
         return sum;
     }
 
     public int getTiming(int index) {
-        return  timings.get(index);
+        return timings[index];
     }
 
+    /**
+     * Returns the index of the argument, being either a raw duration or a cleaned timing.
+     * @param duration
+     * @return index in the timings, or null if not found.
+     */
     public Integer getIndex(int duration) {
-        return lookDownTable.get(duration);
+        int index = Arrays.binarySearch(distinctDurations, duration);
+        if (index >= 0)
+            return distinctTimingIndex[index];
+        index = Arrays.binarySearch(timings, duration);
+        return index >= 0 ? index : null;
     }
 
     private List<Integer> getFalshesOrGaps(boolean isFlash) {
-        List<Integer> list = new ArrayList<>(timings.size());
-        timings.stream().filter((d) -> (cleanedHistogram.get(d).get(isFlash) > 0)).forEach((d) -> {
-            list.add(d);
-        });
+        int[] counts = isFlash ? cleanedFlashes : cleanedGaps;
+        List<Integer> list = new ArrayList<>(timings.length);
+        for (int i = 0; i < timings.length; i++)
+            if (counts[i] > 0)
+                list.add(timings[i]);
         return list;
     }
 
@@ -266,19 +499,18 @@ public class Cleaner {
      * @return the cleanedHistogram
      */
     public HashMap<Integer, Integer> getCleanedHistogram() {
-        HashMap<Integer, Integer> result = new LinkedHashMap<>(cleanedHistogram.size());
-        cleanedHistogram.entrySet().stream().forEach((kvp) -> {
-            result.put(kvp.getKey(), kvp.getValue().total());
-        });
+        HashMap<Integer, Integer> result = new LinkedHashMap<>(timings.length);
+        for (int i = 0; i < timings.length; i++)
+            result.put(timings[i], cleanedFlashes[i] + cleanedGaps[i]);
         return result;
     }
 
     public int getNumberGaps(int duration) {
-        return cleanedHistogram.get(duration).numberGaps;
+        return cleanedGaps[timingIndex(duration)];
     }
 
     public int getNumberFlashes(int duration) {
-        return cleanedHistogram.get(duration).numberFlashes;
+        return cleanedFlashes[timingIndex(duration)];
     }
 
     public int getNumberPairs(int flash, int gap) {
@@ -287,19 +519,62 @@ public class Cleaner {
         if (igap == null || iflash == null)
             throw new ThisCannotHappenException();
 
-        int result = 0;
-        for (int i = 0; i < indexData.length - 1; i += 2)
-            if (indexData[i] == iflash && indexData[i + 1] == igap)
-                result++;
+        int row = flashRow[iflash];
+        int column = gapColumn[igap];
+        return row < 0 || column < 0 ? 0 : pairCounts[row][column];
+    }
 
-        return result;
+    /**
+     * Counts the flash-gap pairs in one pass over indexData, into a dense matrix,
+     * with rows for the timings occurring as flashes, and columns for the ones occurring as gaps.
+     */
+    private void createPairCounts() {
+        createPairTable();
+        countPairs(0);
+    }
+
+    /**
+     * Sets up an empty pair count matrix for the current cleaned histogram.
+     */
+    private void createPairTable() {
+        flashRow = new int[timings.length];
+        gapColumn = new int[timings.length];
+        int noFlashes = 0;
+        int noGaps = 0;
+        for (int i = 0; i < timings.length; i++) {
+            flashRow[i] = cleanedFlashes[i] > 0 ? noFlashes++ : -1;
+            gapColumn[i] = cleanedGaps[i] > 0 ? noGaps++ : -1;
+        }
+        pairCounts = new int[noFlashes][noGaps];
+    }
+
+    /**
+     * Counts the flash-gap pairs of the data starting at oldLength, after moving the old counts
+     * to the rows and columns of the current timings, which may have started to occur as flashes or gaps.
+     */
+    private void extendPairCounts(int oldLength) {
+        int[] oldFlashRow = flashRow;
+        int[] oldGapColumn = gapColumn;
+        int[][] oldPairCounts = pairCounts;
+        createPairTable();
+        for (int f = 0; f < timings.length; f++)
+            if (oldFlashRow[f] >= 0)
+                for (int g = 0; g < timings.length; g++)
+                    if (oldGapColumn[g] >= 0)
+                        pairCounts[flashRow[f]][gapColumn[g]] = oldPairCounts[oldFlashRow[f]][oldGapColumn[g]];
+        countPairs(oldLength);
+    }
+
+    private void countPairs(int begin) {
+        for (int i = begin; i < rawLength - 1; i += 2)
+            pairCounts[flashRow[indexData[i]]][gapColumn[indexData[i + 1]]]++;
     }
 
     private void createSortedGapsAndFlashes() {
         gapsSortedAfterFrequency = getFalshesOrGaps(false);
-        Collections.sort(gapsSortedAfterFrequency,    (a, b) -> cleanedHistogram.get(b).numberGaps    - cleanedHistogram.get(a).numberGaps);
+        Collections.sort(gapsSortedAfterFrequency,    (a, b) -> getNumberGaps(b)    - getNumberGaps(a));
         flashesSortedAfterFrequency = getFalshesOrGaps(true);
-        Collections.sort(flashesSortedAfterFrequency, (a, b) -> cleanedHistogram.get(b).numberFlashes - cleanedHistogram.get(a).numberFlashes);
+        Collections.sort(flashesSortedAfterFrequency, (a, b) -> getNumberFlashes(b) - getNumberFlashes(a));
     }
 
     public int getGapsSortedAfterFrequency(int i) {
@@ -350,27 +625,28 @@ public class Cleaner {
     }
 
     public int getCleanedTime(int i) {
-        return timings.get(indexData[i]);
+        return timings[indexData[i]];
     }
 
     public int getNoSequences() {
-        return signalMode ? 1 : indices.length;
+        return signalMode ? 1 : noSequences;
     }
 
     protected int getTimeBaseFromData(double relativeTolerance) {
-        Integer min = timings.get(0);
+        int min = timings[0];
         if (min == 0)
             throw new ThisCannotHappenException("min == 0");
-        List<Integer> list = new ArrayList<>(timings.size());
-        StringBuilder str = new StringBuilder(5*timings.size());
-        timings.forEach((time) -> {
-            int numberOccurances = cleanedHistogram.get(time).total();
+        List<Integer> list = new ArrayList<>(timings.length);
+        StringBuilder str = new StringBuilder(5*timings.length);
+        for (int i = 0; i < timings.length; i++) {
+            int time = timings[i];
+            int numberOccurances = cleanedFlashes[i] + cleanedGaps[i];
             int span = time/min;
             if (numberOccurances > 1 && span <= MAXSPAN) {
                 list.add(time);
                 str.append(" ").append(time);
             }
-        });
+        }
         if (list.isEmpty()) {
             logger.log(Level.FINE, "Cannot find a sensible time base");
             return 1;
@@ -379,40 +655,4 @@ public class Cleaner {
         logger.log(Level.FINER, "Computing GCD of {0} to {1}", new Object[]{str.toString(), gcd});
         return gcd;
     }
-
-    private static class HistoPair {
-
-        int numberGaps;
-        int numberFlashes;
-
-        HistoPair() {
-            numberGaps = 0;
-            numberFlashes = 0;
-        }
-
-        int get(boolean isFlash) {
-            return isFlash ? numberFlashes : numberGaps;
-        }
-
-        void increment(boolean isFlash) {
-            if (isFlash)
-                numberFlashes++;
-            else
-                numberGaps++;
-        }
-
-        int total() {
-            return numberFlashes + numberGaps;
-        }
-
-        @Override
-        public String toString() {
-            return total() + "=" + numberGaps + "+" + numberFlashes;
-        }
-
-        private void add(HistoPair op) {
-            numberGaps += op.numberGaps;
-            numberFlashes += op.numberFlashes;
-        }
-    }
 }
@@ -0,0 +1,257 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.analyze;
+
+import java.util.Arrays;
+import org.harctoolbox.ircore.IrCoreUtils;
+import org.harctoolbox.ircore.IrSequence;
+import org.harctoolbox.ircore.OddSequenceLengthException;
+import org.harctoolbox.ircore.ThisCannotHappenException;
+
+/**
+ * Incremental version of {@link RepeatFinder}, for durations arriving one at a time, for example from a live receiver.
+ *
+ * <p>The input is split into frames, each ending with a gap larger than minRepeatLastGap (or when reaching maxFrameLength).
+ * A frame equal (within tolerance) to its predecessor is a repetition. Frames before the first repetition form the intro,
+ * frames after the last form the ending. The last gaps of the frames are not compared.
+ * Only the previous and the current frame are kept, so the memory used is bounded by maxFrameLength,
+ * independent of the length of the input.
+ *
+ * <p>In contrast to RepeatFinder, a repeat consists of exactly one frame.
+ */
+public final class OnlineRepeatFinder {
+
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024;
+
+    private final double absoluteTolerance;
+    private final double relativeTolerance;
+    private final double minRepeatLastGap;
+    private final int maxFrameLength;
+    private final Listener listener;
+
+    private double[] current;
+    private int currentLength;
+    private double[] previous;
+    private int previousLength;
+
+    private int introLength;
+    private int repeatLength;
+    private int numberRepeats;
+    private int endingLength;
+    private double repeatsDuration;
+
+    /**
+     * @param absoluteTolerance
+     * @param relativeTolerance
+     * @param minRepeatLastGap Gaps larger than this end a frame.
+     * @param maxFrameLength Maximal number of durations in a frame; longer frames are terminated at this length. Must be even.
+     * @param listener Called when a frame has been classified; may be null.
+     */
+    public OnlineRepeatFinder(Double absoluteTolerance, Double relativeTolerance, Double minRepeatLastGap, int maxFrameLength, Listener listener) {
+        if (maxFrameLength <= 0 || maxFrameLength % 2 != 0)
+            throw new IllegalArgumentException("maxFrameLength must be positive and even");
+        this.absoluteTolerance = IrCoreUtils.getAbsoluteTolerance(absoluteTolerance);
+        this.relativeTolerance = IrCoreUtils.getRelativeTolerance(relativeTolerance);
+        this.minRepeatLastGap = IrCoreUtils.getMinRepeatLastGap(minRepeatLastGap);
+        this.maxFrameLength = maxFrameLength;
+        this.listener = listener;
+        current = new double[Math.min(64, maxFrameLength)];
+        previous = new double[current.length];
+        reset();
+    }
+
+    public OnlineRepeatFinder(Listener listener) {
+        this(null, null, null, DEFAULT_MAX_FRAME_LENGTH, listener);
+    }
+
+    public OnlineRepeatFinder() {
+        this(null);
+    }
+
+    /**
+     * Forgets everything, to start with a new signal.
+     */
+    public void reset() {
+        currentLength = 0;
+        previousLength = 0;
+        introLength = 0;
+        repeatLength = 0;
+        numberRepeats = 0;
+        endingLength = 0;
+        repeatsDuration = 0.0;
+    }
+
+    /**
+     * Feeds the next duration, flashes and gaps alternating, starting with a flash.
+     * @param duration in micro seconds, sign ignored.
+     */
+    public void add(double duration) {
+        if (currentLength == current.length)
+            current = Arrays.copyOf(current, Math.min(2 * current.length, maxFrameLength));
+        double value = Math.abs(duration);
+        current[currentLength++] = value;
+        if (currentLength % 2 == 0 && (value > minRepeatLastGap || currentLength == maxFrameLength))
+            endFrame();
+    }
+
+    public void add(IrSequence irSequence) {
+        for (int i = 0; i < irSequence.getLength(); i++)
+            add(irSequence.get(i));
+    }
+
+    /**
+     * Terminates the current frame, if non-empty, for example at the end of the input.
+     * A pending flash without a gap is discarded.
+     */
+    public void flush() {
+        currentLength -= currentLength % 2;
+        if (currentLength > 0)
+            endFrame();
+    }
+
+    private void endFrame() {
+        int length = currentLength;
+        Event event;
+        if (numberRepeats > 1) {
+            if (endingLength == 0 && equalsPrevious()) {
+                numberRepeats++;
+                repeatsDuration += IrCoreUtils.l1Norm(current, 0, length);
+                event = Event.repeat;
+            } else {
+                endingLength += length;
+                event = Event.ending;
+            }
+        } else if (previousLength > 0 && equalsPrevious()) {
+            numberRepeats = 2;
+            repeatLength = length;
+            repeatsDuration = IrCoreUtils.l1Norm(previous, 0, length) + IrCoreUtils.l1Norm(current, 0, length);
+            event = Event.repeat;
+        } else {
+            if (previousLength > 0)
+                introLength += previousLength;
+            double[] tmp = previous;
+            previous = current;
+            current = tmp;
+            previousLength = length;
+            event = Event.frame;
+        }
+        currentLength = 0;
+        if (listener != null)
+            listener.frame(event, this);
+    }
+
+    private boolean equalsPrevious() {
+        return currentLength == previousLength
+                && IrCoreUtils.approximatelyEquals(previous, 0, current, 0, currentLength - 1, absoluteTolerance, relativeTolerance);
+    }
+
+    /**
+     * @return true if (at least) one repetition has been found.
+     */
+    public boolean hasRepeat() {
+        return numberRepeats > 1;
+    }
+
+    /**
+     * @return Number of occurrences of the repeat frame, or 0 if not yet found.
+     */
+    public int getNumberRepeats() {
+        return numberRepeats;
+    }
+
+    /**
+     * @return Number of durations before the repeats.
+     */
+    public int getIntroLength() {
+        return numberRepeats > 1 ? introLength : introLength + previousLength;
+    }
+
+    /**
+     * @return Number of durations in the repeat frame, or 0 if not yet found.
+     */
+    public int getRepeatLength() {
+        return repeatLength;
+    }
+
+    /**
+     * @return Number of durations in completed frames after the repeats.
+     */
+    public int getEndingLength() {
+        return endingLength;
+    }
+
+    /**
+     * Returns the repeat frame found, or null if none.
+     * @return IrSequence
+     */
+    public IrSequence getRepeat() {
+        if (numberRepeats < 2)
+            return null;
+        try {
+            return new IrSequence(Arrays.copyOf(previous, previousLength));
+        } catch (OddSequenceLengthException ex) {
+            throw new ThisCannotHappenException(ex);
+        }
+    }
+
+    /**
+     * Returns the boundaries of the completed frames, in the format of RepeatFinder, for example for
+     * {@link RepeatFinder.RepeatFinderData#chopIrSequence(org.harctoolbox.ircore.ModulatedIrSequence)}.
+     * @return RepeatFinderData
+     */
+    public RepeatFinder.RepeatFinderData getRepeatFinderData() {
+        if (numberRepeats < 2)
+            return new RepeatFinder.RepeatFinderData(getIntroLength());
+        try {
+            return new RepeatFinder.RepeatFinderData(introLength, repeatLength, numberRepeats, endingLength, previous[repeatLength - 1], repeatsDuration);
+        } catch (OddSequenceLengthException ex) {
+            throw new ThisCannotHappenException(ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getRepeatFinderData().toString();
+    }
+
+    public enum Event {
+        /**
+         * Frame not (yet) repeated; it, or its predecessor, belongs to the intro.
+         */
+        frame,
+
+        /**
+         * Frame equals the repeat frame.
+         */
+        repeat,
+
+        /**
+         * Frame after the repeats.
+         */
+        ending;
+    }
+
+    public interface Listener {
+        /**
+         * Called when a frame has been completed and classified.
+         * @param event classification of the frame
+         * @param repeatFinder the calling OnlineRepeatFinder, for querying the current state.
+         */
+        void frame(Event event, OnlineRepeatFinder repeatFinder);
+    }
+}
@@ -17,6 +17,7 @@ this program. If not, see http://www.gnu.org/licenses/.
 
 package org.harctoolbox.analyze;
 
+import java.util.Arrays;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.IrSequence;
@@ -26,6 +27,11 @@ import org.harctoolbox.ircore.OddSequenceLengthException;
 import org.harctoolbox.ircore.ThisCannotHappenException;
 
 public final class RepeatFinder {
+    /**
+     * Allowance for rounding differences between a prefix sum difference and the direct sum of the durations.
+     */
+    private static final double ROUNDINGMARGIN = 1.0;
+
     private static double defaultMinRepeatLastGap  = IrCoreUtils.DEFAULT_MIN_REPEAT_LAST_GAP;
     private static double defaultRelativeTolerance = IrCoreUtils.DEFAULT_RELATIVE_TOLERANCE;
     private static double defaultAbsoluteTolerance = IrCoreUtils.DEFAULT_ABSOLUTE_TOLERANCE;
@@ -118,7 +124,57 @@ public final class RepeatFinder {
         this(new IrSequence(data), defaultAbsoluteTolerance, defaultRelativeTolerance);
     }
 
+    /**
+     * Finds the best repeat structure. Instead of trying every (length, beginning) combination,
+     * only the candidates whose repeat ends with a gap larger than minRepeatLastGap are considered,
+     * since all others are rejected anyhow. These are enumerated from an index of the big gaps,
+     * in the same order as {@link #analyzeExhaustive()}, and pre-filtered by comparing the ending gaps of the
+     * first two repeats, before the full comparison. Also candidates that cannot replace the current one are skipped:
+     * their repeats cannot last longer than the whole multiples of the length fitting in the rest of the sequence,
+     * which is found from prefix sums in constant time. Since the longest repeating part is found early,
+     * for example for a held button, only few candidates, with lengths dividing that part, are fully compared.
+     * The result is identical to the exhaustive search, but the time is roughly quadratic in the worst case,
+     * instead of cubic.
+     */
     private void analyze() {
+        int[] bigGaps = bigGaps();
+        double[] prefixDurations = prefixDurations();
+        int sequenceLength = irSequence.getLength();
+        RepeatFinderData candidate = new RepeatFinderData(sequenceLength);
+        for (int length = 2 * (sequenceLength / 4); length >= 4; length -= 2) {
+            for (int gap : bigGaps) {
+                int beginning = gap + 1 - length;
+                if (beginning < 0)
+                    continue;
+                if (beginning >= sequenceLength - length)
+                    break;
+                if (!mayRepeat(gap, length))
+                    continue;
+                int maxRepeatsLength = length * ((sequenceLength - beginning) / length);
+                double maxDuration = prefixDurations[beginning + maxRepeatsLength] - prefixDurations[beginning];
+                if (maxDuration + ROUNDINGMARGIN <= candidate.repeatsDuration - 0.1)
+                    continue;
+                RepeatFinderData newCandidate;
+                try {
+                    newCandidate = countRepeats(beginning, length);
+                } catch (OddSequenceLengthException ex) {
+                    throw new ThisCannotHappenException();
+                }
+                if (newCandidate.numberRepeats > 1
+                        && newCandidate.lastGap > minRepeatLastGap
+                        && newCandidate.repeatsDuration > candidate.repeatsDuration - 0.1)
+                    candidate = newCandidate;
+            }
+        }
+        repeatFinderData = candidate;
+    }
+
+    /**
+     * Straightforward search through all combinations of length and beginning.
+     * Reference implementation for {@link #analyze()}.
+     * @return RepeatFinderData
+     */
+    RepeatFinderData analyzeExhaustive() {
         RepeatFinderData candidate = new RepeatFinderData(irSequence.getLength());
         for (int length = irSequence.getLength() / 4; length >= 2; length--) {
             for (int beginning = 0; beginning < irSequence.getLength() / 2 - length; beginning++) {
@@ -134,7 +190,43 @@ public final class RepeatFinder {
                     candidate = newCandidate;
             }
         }
-        repeatFinderData = candidate;
+        return candidate;
+    }
+
+    /**
+     * @return Array of length + 1, with the total duration of the first i durations at index i.
+     */
+    private double[] prefixDurations() {
+        double[] result = new double[irSequence.getLength() + 1];
+        for (int i = 0; i < irSequence.getLength(); i++)
+            result[i + 1] = result[i] + Math.abs(irSequence.get(i));
+        return result;
+    }
+
+    /**
+     * @return The (ascending) indices of the gaps larger than minRepeatLastGap.
+     */
+    private int[] bigGaps() {
+        int[] result = new int[irSequence.getLength() / 2];
+        int n = 0;
+        for (int i = 1; i < irSequence.getLength(); i += 2)
+            if (Math.abs(irSequence.get(i)) > minRepeatLastGap)
+                result[n++] = i;
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Necessary condition for the repeat of the given length, ending with gap, to occur at least twice:
+     * the last gap of the second occurrence must match, in the sense of {@link #compareSubSequences(int, int, int)}.
+     */
+    private boolean mayRepeat(int gap, int length) {
+        int nextGap = gap + length;
+        if (nextGap >= irSequence.getLength())
+            return false;
+        double first = irSequence.get(gap);
+        double second = irSequence.get(nextGap);
+        return IrCoreUtils.approximatelyEquals(first, second, absoluteTolerance, relativeTolerance)
+                || (nextGap == irSequence.getLength() - 1 && minRepeatLastGap > 0 && first >= minRepeatLastGap && second >= minRepeatLastGap);
     }
 
     private RepeatFinderData countRepeats(int beginning, int length) throws OddSequenceLengthException {
@@ -203,6 +295,12 @@ public final class RepeatFinder {
             setup(beginLength, repeatLength, numberRepeats, endingLength);
         }
 
+        RepeatFinderData(int beginLength, int repeatLength, int numberRepeats, int endingLength, double lastGap, double repeatsDuration) throws OddSequenceLengthException {
+            this(beginLength, repeatLength, numberRepeats, endingLength);
+            this.lastGap = lastGap;
+            this.repeatsDuration = repeatsDuration;
+        }
+
         private void setup(int beginLength, int repeatLength, int numberRepeats, int endingLength) {
             this.beginLength = beginLength;
             this.repeatLength = repeatLength;
@@ -32,6 +32,7 @@ import org.harctoolbox.analyze.AbstractDecoder;
 import org.harctoolbox.analyze.Analyzer;
 import org.harctoolbox.analyze.Burst;
 import org.harctoolbox.analyze.NoDecoderMatchException;
+import org.harctoolbox.ircore.CaptureCorpusReader;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrCoreException;
 import org.harctoolbox.ircore.IrCoreUtils;
@@ -72,12 +73,18 @@ public class CommandAnalyze extends AbstractCommand {
     @Parameter(names = {"-b", "--bit-usage"}, description = "Create bit usage report. (Not with --all)")
     private boolean bitUsage = false;
 
+    @Parameter(names = {"--bulk"}, description = "Use the same decoder for all input sequences, e.g. the signals of a remote.")
+    private boolean bulk = false;
+
     @Parameter(names = {"-c", "--chop"}, description = "Chop input sequence into several using threshold (in milliseconds) given as argument.")
     private Integer chop = null;
 
     @Parameter(names = {"-C", "--clean"}, description = "Output the cleaned sequence(s).")
     private boolean clean = false;
 
+    @Parameter(names = {"--corpus"}, description = "Capture corpus file from which to take inputs.")
+    private String corpus = null;
+
     @Parameter(names = {"-d", "--decoder"}, description = "Use only the decoders matching argument (regular expression, or prefix). "
             + "Use the argument \"list\" to list the available decoders.")
     private String decoder = null;
@@ -176,12 +183,15 @@ public class CommandAnalyze extends AbstractCommand {
                 + "Using the option --input, instead the content of a file can be taken as input, containing sequences to be analyzed, "
                 + "one per line, blank lines ignored. "
                 + "Using the option --namedinput, the sequences may have names, immediately preceeding the signal. "
+                + "Using the option --corpus, the sequences are read from a binary capture corpus, as generated by the \"corpus\" command. "
                 + "\n\n"
                 + "Input sequences can be pre-processed using the options --chop, --clean, and --repeatfinder. "
                 + "\n\n"
                 + "The input sequence(s) are matched using different \"decoders\". "
                 + "Normally the \"best\" decoder match is output. "
                 + "With the --all option, all decoder matches are output. "
+                + "With the --bulk option, all input sequences, which share the timing analysis, are decoded using the same decoder, "
+                + "namely the one decoding the most sequences with the lowest total weight. "
                 + "Using the --decode option, the used decoders can be further limited. "
                 + "The presently available decoders are: "
                 + String.join(", ", AbstractDecoder.decoderNames())
@@ -231,13 +241,15 @@ public class CommandAnalyze extends AbstractCommand {
                 throw new UsageException("Cannot use both --alldecodes and --decode.");
             if (allDecodes && girr)
                 throw new UsageException("Cannot use both --alldecodes and --girr.");
+            if (allDecodes && bulk)
+                throw new UsageException("Cannot use both --alldecodes and --bulk.");
             if (bitUsage && (allDecodes || eliminateVars))
                 throw new UsageException("Bit usage report not possible together with --all or --eliminate-vars");
             if (parameterTable && eliminateVars)
                 throw new UsageException("Parameter table is meaninless together with --eliminate-vars");
 
-            if (IrCoreUtils.numberTrue(input != null, namedInput != null, args != null) != 1)
-                throw new UsageException("Must use exactly one of --input, --namedinput, and non-empty arguments");
+            if (IrCoreUtils.numberTrue(input != null, namedInput != null, corpus != null, args != null) != 1)
+                throw new UsageException("Must use exactly one of --input, --namedinput, --corpus, and non-empty arguments");
 
             if (input != null) {
                 if (validate)
@@ -265,6 +277,21 @@ public class CommandAnalyze extends AbstractCommand {
                if (signals.isEmpty())
                     throw new InvalidArgumentException("No parseable sequences found.");
                 analyze(signals);
+            } else if (corpus != null) {
+                if (validate)
+                    throw new UsageException("Cannot use --validate with --corpus.");
+                // Names need not be unique, records from --input of "corpus" all have the empty name.
+                List<String> names = new ArrayList<>(16);
+                List<ModulatedIrSequence> modSeqs = new ArrayList<>(16);
+                try (CaptureCorpusReader reader = new CaptureCorpusReader(corpus)) {
+                    reader.streamModulatedIrSequences().forEachOrdered((kvp) -> {
+                        names.add(kvp.getKey());
+                        modSeqs.add(kvp.getValue());
+                    });
+                }
+                if (modSeqs.isEmpty())
+                    throw new InvalidArgumentException("No parseable sequences found.");
+                analyze(names, modSeqs);
             } else {
                 MultiParser parser = MultiParser.newIrCoreParser(args);
                 if (introRepeatEnding) {
@@ -317,6 +344,16 @@ public class CommandAnalyze extends AbstractCommand {
             analyze(analyzer, new ArrayList<>(irSequences.keySet()), null);
         }
 
+        private void analyze(List<String> names, List<ModulatedIrSequence> modulatedIrSequences) throws IrpException, IrCoreException, NoDecoderMatchException, UsageException, UnsupportedEncodingException {
+            Double freq = possiblyOverrideWithAnalyzeFrequency(ModulatedIrSequence.frequencyAverage(modulatedIrSequences));
+            Analyzer analyzer = new Analyzer(modulatedIrSequences, freq, repeatFinder || dumpRepeatfinder, commandLineArgs.absoluteTolerance, commandLineArgs.relativeTolerance);
+            List<String> effectiveNames = new ArrayList<>(names.size());
+            if (names.stream().anyMatch((name) -> !name.isEmpty()))
+                for (int i = 0; i < names.size(); i++)
+                    effectiveNames.add(names.get(i).isEmpty() ? "#" + i : names.get(i));
+            analyze(analyzer, effectiveNames, null);
+        }
+
         private void analyze(List<? extends IrSequence> irSequences) throws IrpException, IrCoreException, NoDecoderMatchException, UsageException, UnsupportedEncodingException {
             analyze(irSequences, frequency);
         }
@@ -399,7 +436,9 @@ public class CommandAnalyze extends AbstractCommand {
                     noSignal++;
                 }
             } else {
-                List<Protocol> protocols = analyzer.searchBestProtocol(params, decoder, commandLineArgs.regexp);
+                List<Protocol> protocols = bulk
+                        ? analyzer.searchCommonProtocol(params, decoder, commandLineArgs.regexp)
+                        : analyzer.searchBestProtocol(params, decoder, commandLineArgs.regexp);
 
                 if (girr || fatgirr) {
                     Document doc = ProtocolListDomFactory.protocolListToDom(analyzer, protocols, names, radix, fatgirr);
@@ -0,0 +1,91 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import javax.xml.transform.TransformerException;
+import org.harctoolbox.ircore.CaptureCorpusWriter;
+import org.harctoolbox.ircore.IrCoreUtils;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.MultiParser;
+import org.harctoolbox.ircore.ThingsLineParser;
+import org.xml.sax.SAXException;
+
+@SuppressWarnings("FieldMayBeFinal")
+
+@Parameters(commandNames = {"corpus"}, commandDescription = "Convert text captures to a binary capture corpus.")
+public class CommandCorpus extends AbstractCommand {
+
+    @Parameter(names = {"-c", "--corpus"}, description = "Name of the capture corpus file to be written.", required = true)
+    private String corpus = null;
+
+    @Parameter(names = {"-f", "--frequency"}, converter = FrequencyParser.class, description = "Set modulation frequency.")
+    private Double frequency = null;
+
+    @Parameter(names = {"-i", "--input"}, description = "File/URL from which to take inputs, one per line.")
+    private String input = null;
+
+    @Parameter(names = {"-n", "--namedinput"}, description = "File/URL from which to take inputs, one line name, data one line.")
+    private String namedInput = null;
+
+    @Parameter(names = {"-T", "--trailinggap"}, description = "Trailing gap (in micro seconds) added to sequences of odd length.")
+    private Double trailingGap = null;
+
+    @Parameter(names = {"--xslt"}, description = "File/URL name of XSLT transformation that will be applied to --input or --namedinput argument")
+    private String xslt = null;
+
+    @Override
+    public String description() {
+        return "The \"corpus\" command reads signals in the text formats accepted by --input or --namedinput of \"decode\", "
+                + "and writes them to a binary capture corpus file, that can be read considerably faster "
+                + "by the --corpus options of \"decode\" and \"analyze\". "
+                + "Durations are rounded to integer micro seconds. "
+                + "Signals from --input are given empty names.";
+    }
+
+    public void corpus(PrintStream out, CommandCommonOptions commandLineArgs) throws UsageException, IOException, SAXException, TransformerException {
+        if (IrCoreUtils.numberTrue(input != null, namedInput != null) != 1)
+            throw new UsageException("Must use exactly one of --input and --namedinput");
+
+        ThingsLineParser<IrSignal> irSignalParser = new ThingsLineParser<>((List<String> line) -> {
+            return (MultiParser.newIrCoreParser(line)).toIrSignal(frequency, trailingGap);
+        }, commandLineArgs.commentStart);
+        int count;
+        try (Stream<Map.Entry<String, IrSignal>> signals = input != null
+                ? (xslt == null
+                    ? irSignalParser.streamThings(input, commandLineArgs.inputEncoding, false)
+                    : irSignalParser.streamThings(input, xslt, commandLineArgs.inputEncoding, false))
+                    .map((IrSignal irSignal) -> new AbstractMap.SimpleImmutableEntry<>("", irSignal))
+                : xslt == null
+                    ? irSignalParser.streamNamedThings(namedInput, commandLineArgs.inputEncoding)
+                    : irSignalParser.streamNamedThings(namedInput, xslt, commandLineArgs.inputEncoding)) {
+            count = CaptureCorpusWriter.convert(signals.iterator(), corpus);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        out.println(count + " signals written to " + corpus);
+    }
+}
@@ -20,16 +20,20 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 import javax.xml.transform.TransformerException;
 import org.harctoolbox.analyze.Cleaner;
 import org.harctoolbox.analyze.RepeatFinder;
+import org.harctoolbox.ircore.CaptureCorpusReader;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.IrSignal;
@@ -40,7 +44,9 @@ import org.harctoolbox.irp.Decoder;
 import org.harctoolbox.irp.ElementaryDecode;
 import org.harctoolbox.irp.IrpDatabase;
 import org.harctoolbox.irp.IrpParseException;
+import org.harctoolbox.irp.LoggingDecodeTracer;
 import org.harctoolbox.irp.ProtocolListDomFactory;
+import org.harctoolbox.irp.RecognizeData;
 import org.harctoolbox.xml.XmlUtils;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -60,12 +66,18 @@ public class CommandDecode extends AbstractCommand {
     @Parameter(names = {"-c", "--clean"}, description = "Invoke cleaner on signal") // ignored with --repeat-finder
     private boolean cleaner = false;
 
-    @Parameter(names = { "--debugpattern"}, description = "Stop pattern for decoding", hidden = true)
+    @Parameter(names = {"--corpus"}, description = "Capture corpus file from which to take inputs.")
+    private String corpus = null;
+
+    @Parameter(names = { "--debugpattern"}, description = "Stop pattern for decoding; also turns on tracing of the decoding, logged with level FINE or finer", hidden = true)
     private String debugPattern = null;
 
     @Parameter(names = {"-f", "--frequency"}, converter = FrequencyParser.class, description = "Set modulation frequency.")
     private Double frequency = null;
 
+    @Parameter(names = {"--first"}, description = "Output only the preferred decode, trying as few protocols as possible. Sequences decoded as such are still tried against all protocols.")
+    private boolean firstMatch = false;
+
     @Parameter(names = {"-g", "--girr"}, description = "Generate output in Girr format (only)")
     private boolean girr = false;
 
@@ -124,6 +136,7 @@ public class CommandDecode extends AbstractCommand {
                 + "Using the option --input, instead the content of a file can be taken as input, containing sequences to be analyzed, "
                 + "one per line, blank lines ignored. "
                 + "Using the option --namedinput, the sequences may have names, immediately preceeding the signal. "
+                + "Using the option --corpus, the signals are read from a binary capture corpus, as generated by the \"corpus\" command. "
                 + "\n\n"
                 + "Input sequences can be pre-processed using the options --clean, and --repeatfinder. "
                 + "\n\n"
@@ -153,12 +166,13 @@ public class CommandDecode extends AbstractCommand {
         private void decode() throws UsageException, IrpParseException, IOException, InvalidArgumentException, SAXException, TransformerException {
             CmdUtils.checkForOption("decode", args);
 
-            if (IrCoreUtils.numberTrue(input != null, namedInput != null, args != null) != 1)
-                throw new UsageException("Must use exactly one of --input, --namedinput, and non-empty arguments");
+            if (IrCoreUtils.numberTrue(input != null, namedInput != null, corpus != null, args != null) != 1)
+                throw new UsageException("Must use exactly one of --input, --namedinput, --corpus, and non-empty arguments");
             if (ignoreLeadingGarbage && strict)
                 throw new UsageException("--strict and --ignoreleadinggarbage may not be used together.");
 
             Decoder.setDebugProtocolRegExp(debugPattern);
+            RecognizeData.setDecodeTracer(debugPattern != null ? new LoggingDecodeTracer() : null);
             List<String> protocolNamePatterns = protocol == null ? null : Arrays.asList(protocol.split(","));
             List<String> protocolsNames = irpDatabase.evaluateProtocols(protocolNamePatterns, commandLineArgs.sort, commandLineArgs.regexp, commandLineArgs.urlDecode);
             if (protocolsNames.isEmpty())
@@ -169,18 +183,40 @@ public class CommandDecode extends AbstractCommand {
                 ThingsLineParser<IrSignal> irSignalParser = new ThingsLineParser<>((List<String> line) -> {
                     return (MultiParser.newIrCoreParser(line)).toIrSignal(frequency, trailingGap);
                 }, commandLineArgs.commentStart);
-                List<IrSignal> signals = xslt == null
-                        ? irSignalParser.readThings(input, commandLineArgs.inputEncoding, false)
-                        : irSignalParser.readThings(input, xslt, commandLineArgs.inputEncoding, false);
-                decode(signals);
+                try (Stream<IrSignal> signals = xslt == null
+                        ? irSignalParser.streamThings(input, commandLineArgs.inputEncoding, false)
+                        : irSignalParser.streamThings(input, xslt, commandLineArgs.inputEncoding, false)) {
+                    decode(signals.iterator());
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                }
             } else if (namedInput != null) {
                 ThingsLineParser<IrSignal> irSignalParser = new ThingsLineParser<>((List<String> line) -> {
                     return (MultiParser.newIrCoreParser(line)).toIrSignal(frequency, trailingGap);
                 }, commandLineArgs.commentStart);
-                Map<String, IrSignal> signals = xslt == null
-                        ? irSignalParser.readNamedThings(namedInput, commandLineArgs.inputEncoding)
-                        : irSignalParser.readNamedThings(namedInput, xslt, commandLineArgs.inputEncoding);
-                decode(signals);
+                if (girr || commandLineArgs.tsvOptimize) {
+                    // No column alignment needed, so the signals need not be kept in memory.
+                    try (Stream<Map.Entry<String, IrSignal>> signals = xslt == null
+                            ? irSignalParser.streamNamedThings(namedInput, commandLineArgs.inputEncoding)
+                            : irSignalParser.streamNamedThings(namedInput, xslt, commandLineArgs.inputEncoding)) {
+                        decodeNamed(signals.iterator(), 0);
+                    } catch (UncheckedIOException ex) {
+                        throw ex.getCause();
+                    }
+                } else {
+                    Map<String, IrSignal> signals = xslt == null
+                            ? irSignalParser.readNamedThings(namedInput, commandLineArgs.inputEncoding)
+                            : irSignalParser.readNamedThings(namedInput, xslt, commandLineArgs.inputEncoding);
+                    decodeNamed(signals.entrySet().iterator(), IrCoreUtils.maxLength(signals.keySet()));
+                }
+            } else if (corpus != null) {
+                try (CaptureCorpusReader reader = new CaptureCorpusReader(corpus)) {
+                    int maxNameLength = 0;
+                    if (!girr && !commandLineArgs.tsvOptimize)
+                        for (int i = 0; i < reader.size(); i++)
+                            maxNameLength = Math.max(maxNameLength, reader.getName(i).length());
+                    decodeNamed(reader.stream().iterator(), maxNameLength);
+                }
             } else {
                 MultiParser prontoRawParser = MultiParser.newIrCoreParser(args);
                 IrSignal irSignal = prontoRawParser.toIrSignal(frequency, trailingGap);
@@ -190,32 +226,34 @@ public class CommandDecode extends AbstractCommand {
             }
         }
 
-        private void decode(List<IrSignal> signals) throws InvalidArgumentException, UnsupportedEncodingException {
+        private void decode(Iterator<IrSignal> signals) throws InvalidArgumentException, UnsupportedEncodingException {
             if (girr) {
                 ProtocolListDomFactory factory = new ProtocolListDomFactory(radix);
-                for (IrSignal irSignal : signals) {
-                    Decoder.AbstractDecodesCollection<? extends ElementaryDecode> decodes = mkDecodes(irSignal);
+                while (signals.hasNext()) {
+                    Decoder.AbstractDecodesCollection<? extends ElementaryDecode> decodes = mkDecodes(signals.next());
                     factory.add(decodes);
                 }
                 printAsGirr(factory);
             } else {
-                for (IrSignal irSignal : signals)
-                    decode(irSignal, null, 0);
+                while (signals.hasNext())
+                    decode(signals.next(), null, 0);
             }
         }
 
-        private void decode(Map<String, IrSignal> signals) throws InvalidArgumentException, UnsupportedEncodingException {
+        private void decodeNamed(Iterator<Map.Entry<String, IrSignal>> signals, int maxNameLength) throws InvalidArgumentException, UnsupportedEncodingException {
             if (girr) {
                 ProtocolListDomFactory factory = new ProtocolListDomFactory(radix);
-                for (Map.Entry<String, IrSignal> kvp : signals.entrySet()) {
+                while (signals.hasNext()) {
+                    Map.Entry<String, IrSignal> kvp = signals.next();
                     Decoder.AbstractDecodesCollection<? extends ElementaryDecode> decodes = mkDecodes(kvp.getValue());
                     factory.add(decodes, kvp.getKey());
                 }
                 printAsGirr(factory);
             } else {
-                int maxNameLength = IrCoreUtils.maxLength(signals.keySet());
-                for (Map.Entry<String, IrSignal> kvp : signals.entrySet())
+                while (signals.hasNext()) {
+                    Map.Entry<String, IrSignal> kvp = signals.next();
                     decode(kvp.getValue(), kvp.getKey(), maxNameLength);
+                }
             }
         }
 
@@ -257,9 +295,11 @@ public class CommandDecode extends AbstractCommand {
         }
 
         private Decoder.DecoderParameters newDecoderParameters() {
-            return new Decoder.DecoderParameters(strict, noPreferOver,
+            Decoder.DecoderParameters params = new Decoder.DecoderParameters(strict, noPreferOver,
                     !keepDefaultedParameters, recursive, commandLineArgs.frequencyTolerance,
                     commandLineArgs.absoluteTolerance, commandLineArgs.relativeTolerance, commandLineArgs.minLeadout, commandLineArgs.override, ignoreLeadingGarbage);
+            params.setFirstMatch(firstMatch);
+            return params;
         }
 
         private void printDecodes(Decoder.AbstractDecodesCollection<? extends ElementaryDecode> decodes, String name, int maxNameLength) {
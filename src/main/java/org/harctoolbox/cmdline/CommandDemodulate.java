@@ -21,6 +21,7 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import java.io.PrintStream;
 import java.util.List;
+import org.harctoolbox.ircore.Demodulator;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrSequence;
 import org.harctoolbox.ircore.ModulatedIrSequence;
@@ -32,6 +33,14 @@ public class CommandDemodulate extends AbstractCommand {
 
     //private static final Logger logger = Logger.getLogger(CommandDemodulate.class.getName());
 
+    @Parameter(names = {"-c", "--chunks"}, description = "Print frequency and duty cycle estimates for the chunks of the input.")
+    @SuppressWarnings("FieldMayBeFinal")
+    private boolean chunks = false;
+
+    @Parameter(names = {"--chunksize"}, description = "Minimal number of flash-gap pairs processed as one chunk.")
+    @SuppressWarnings("FieldMayBeFinal")
+    private int chunkSize = Demodulator.DEFAULT_CHUNK_SIZE;
+
     @Parameter(names = {"-t", "--threshold"}, description = "Threshold used for demodulating, in micro seconds.", converter = NameEngineParser.class)
     @SuppressWarnings("FieldMayBeFinal")
     private double threshold = ModulatedIrSequence.DEFAULT_DEMODULATE_THRESHOLD;
@@ -44,13 +53,20 @@ public class CommandDemodulate extends AbstractCommand {
     public String description() {
         return "This command demodulates its argument IrSequence, emulating the use of a demodulating IR receiver. "
                 + "This means that all gaps less than or equal to the threshold are squeezed into the preceeding flash. "
-                + "Typically the threshold is taken around the period of the expected modulation frequency.";
+                + "Typically the threshold is taken around the period of the expected modulation frequency. "
+                + "Long inputs are split into chunks at gaps above the threshold, which are processed in parallel.";
     }
 
-    public void demodulate(PrintStream out, CommandCommonOptions commandLineArgs) throws OddSequenceLengthException, InvalidArgumentException {
+    public void demodulate(PrintStream out, CommandCommonOptions commandLineArgs) throws OddSequenceLengthException, InvalidArgumentException, UsageException {
+        if (chunkSize <= 0)
+            throw new UsageException("--chunksize must be positive");
         MultiParser prontoRawParser = MultiParser.newIrCoreParser(args);
         IrSequence irSequence = prontoRawParser.toIrSequence(commandLineArgs.minLeadout);
-        ModulatedIrSequence demodulated = ModulatedIrSequence.demodulate(irSequence, threshold);
-        out.println(demodulated.toString(true));
+        Demodulator.Result result = new Demodulator(threshold, chunkSize).demodulate(irSequence);
+        out.println(result.getModulatedIrSequence().toString(true));
+        if (chunks)
+            result.getChunks().forEach((chunk) -> {
+                out.println(chunk);
+            });
     }
 }
@@ -0,0 +1,98 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.ircore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary container format for named IrSignals and ModulatedIrSequences ("capture corpus").
+ *
+ * <p>A corpus file consists of a header (magic "IRCC", one version byte), the records,
+ * an index block of one 8-byte (big endian) record offset per record, and a 16 byte trailer,
+ * containing the offset of the index block (8 bytes), the number of records (4 bytes), and the magic "IRCI".
+ *
+ * <p>A record consists of a kind byte (IrSignal or ModulatedIrSequence), the UTF-8 encoded name,
+ * the frequency, the duty cycle, the intro, repeat, and ending lengths (0, 0 for ModulatedIrSequences),
+ * and the durations. All numbers in a record are unsigned LEB128 varints. Frequency (in Hz) and duty cycle
+ * (in millionths) are stored rounded, plus one, 0 denoting null. Durations are stored rounded to integer micro seconds.
+ *
+ * @see CaptureCorpusWriter
+ * @see CaptureCorpusReader
+ */
+public abstract class CaptureCorpus {
+
+    public static final String DEFAULT_EXTENSION = "ircc";
+
+    static final Charset CHARSET = StandardCharsets.UTF_8;
+    static final byte[] MAGIC = { 'I', 'R', 'C', 'C' };
+    static final byte[] INDEX_MAGIC = { 'I', 'R', 'C', 'I' };
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 1;
+    static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES + INDEX_MAGIC.length;
+
+    /**
+     * Maximal size of a corpus file, since it is read through one MappedByteBuffer.
+     */
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+    static final int KIND_IRSIGNAL = 0;
+    static final int KIND_MODULATEDIRSEQUENCE = 1;
+
+    static final double DUTYCYCLE_SCALE = 1000000.0;
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0L) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarint(ByteBuffer buffer) throws InvalidArgumentException {
+        long result = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+        throw new InvalidArgumentException("Malformed varint in capture corpus");
+    }
+
+    static int readInt(ByteBuffer buffer) throws InvalidArgumentException {
+        long value = readVarint(buffer);
+        if (value > Integer.MAX_VALUE)
+            throw new InvalidArgumentException("Value too large in capture corpus");
+        return (int) value;
+    }
+
+    static long encodeNullable(Double value, double scale) {
+        return value == null ? 0L : Math.round(value * scale) + 1L;
+    }
+
+    static Double decodeNullable(long code, double scale) {
+        return code == 0L ? null : (code - 1L) / scale;
+    }
+
+    private CaptureCorpus() {
+    }
+}
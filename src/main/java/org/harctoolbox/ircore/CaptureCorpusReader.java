@@ -0,0 +1,240 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.ircore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static org.harctoolbox.ircore.CaptureCorpus.*;
+
+/**
+ * Reads a capture corpus, as described in {@link CaptureCorpus}, through a memory-mapped FileChannel.
+ * Records are accessed randomly through the index, and decoded directly from the mapped file, without intermediate copies.
+ * Files larger than 2GB are not supported. Instances are thread safe.
+ */
+public final class CaptureCorpusReader implements Closeable {
+
+    private static final Logger logger = Logger.getLogger(CaptureCorpusReader.class.getName());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int indexPosition;
+    private final int size;
+    private Map<String, Integer> nameIndex;
+
+    public CaptureCorpusReader(String filename) throws IOException {
+        this(Paths.get(filename));
+    }
+
+    public CaptureCorpusReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize > MAX_FILE_SIZE)
+                throw new IOException("Capture corpus " + path + " too large");
+            if (fileSize < HEADER_SIZE + TRAILER_SIZE)
+                throw new IOException(path + " is not a capture corpus");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, fileSize);
+            if (!hasMagic(MAGIC, 0) || !hasMagic(INDEX_MAGIC, (int) fileSize - INDEX_MAGIC.length))
+                throw new IOException(path + " is not a capture corpus");
+            int version = buffer.get(MAGIC.length);
+            if (version != VERSION)
+                throw new IOException("Unsupported capture corpus version " + version);
+            int trailerPosition = (int) fileSize - TRAILER_SIZE;
+            long indexPos = buffer.getLong(trailerPosition);
+            size = buffer.getInt(trailerPosition + Long.BYTES);
+            if (size < 0 || indexPos < HEADER_SIZE || indexPos + (long) size * Long.BYTES != trailerPosition)
+                throw new IOException("Corrupt index in capture corpus " + path);
+            indexPosition = (int) indexPos;
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+        nameIndex = null;
+    }
+
+    private boolean hasMagic(byte[] magic, int position) {
+        for (int i = 0; i < magic.length; i++)
+            if (buffer.get(position + i) != magic[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return Number of records in the corpus.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the record with index given as argument.
+     * @param index
+     * @return Name, possibly empty.
+     * @throws InvalidArgumentException if the record is malformed.
+     */
+    public String getName(int index) throws InvalidArgumentException {
+        ByteBuffer record = record(index);
+        try {
+            record.get(); // kind
+            return readName(record);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new InvalidArgumentException("Truncated record " + index + " in capture corpus");
+        }
+    }
+
+    /**
+     * Returns the record with the index given as argument as IrSignal.
+     * ModulatedIrSequence records are returned as IrSignal having only an intro sequence.
+     * @param index
+     * @return IrSignal
+     * @throws InvalidArgumentException if the record is malformed.
+     */
+    public IrSignal getIrSignal(int index) throws InvalidArgumentException {
+        return readRecord(index, record(index)).getValue();
+    }
+
+    /**
+     * Returns the record with the index given as argument as ModulatedIrSequence.
+     * IrSignal records are returned as the concatenation of their intro, repeat, and ending sequences.
+     * @param index
+     * @return ModulatedIrSequence
+     * @throws InvalidArgumentException if the record is malformed.
+     */
+    public ModulatedIrSequence getModulatedIrSequence(int index) throws InvalidArgumentException {
+        return getIrSignal(index).toModulatedIrSequence();
+    }
+
+    /**
+     * Returns the first record with the name given as argument.
+     * The name index is built on first invocation.
+     * @param name
+     * @return IrSignal, or null if not found.
+     * @throws InvalidArgumentException if the corpus is malformed.
+     */
+    public IrSignal getIrSignal(String name) throws InvalidArgumentException {
+        Integer index = getNameIndex().get(Objects.requireNonNull(name));
+        return index != null ? getIrSignal(index) : null;
+    }
+
+    private synchronized Map<String, Integer> getNameIndex() throws InvalidArgumentException {
+        if (nameIndex == null) {
+            Map<String, Integer> map = new HashMap<>(2 * size);
+            for (int i = 0; i < size; i++)
+                map.putIfAbsent(getName(i), i);
+            nameIndex = map;
+        }
+        return nameIndex;
+    }
+
+    /**
+     * Returns the records, in file order, as lazily decoded Stream of name-IrSignal pairs.
+     * Malformed records are logged and skipped.
+     * @return Stream
+     */
+    public Stream<Map.Entry<String, IrSignal>> stream() {
+        return IntStream.range(0, size).mapToObj((int i) -> {
+            try {
+                return readRecord(i, record(i));
+            } catch (InvalidArgumentException ex) {
+                logger.log(Level.WARNING, "Record {0}: {1}", new Object[]{i, ex.getMessage()});
+                return null;
+            }
+        }).filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the records as Stream of name-ModulatedIrSequence pairs, see {@link #getModulatedIrSequence(int)}.
+     * @return Stream
+     */
+    public Stream<Map.Entry<String, ModulatedIrSequence>> streamModulatedIrSequences() {
+        return stream().map((Map.Entry<String, IrSignal> kvp) -> new AbstractMap.SimpleImmutableEntry<>(kvp.getKey(), kvp.getValue().toModulatedIrSequence()));
+    }
+
+    private ByteBuffer record(int index) throws InvalidArgumentException {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Record " + index + " not in corpus of size " + size);
+        long position = buffer.getLong(indexPosition + index * Long.BYTES);
+        if (position < HEADER_SIZE || position >= indexPosition)
+            throw new InvalidArgumentException("Corrupt offset of record " + index + " in capture corpus");
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) position).limit(indexPosition);
+        return record;
+    }
+
+    private String readName(ByteBuffer record) throws InvalidArgumentException {
+        int nameLength = readInt(record);
+        ByteBuffer name = record.slice();
+        name.limit(nameLength);
+        record.position(record.position() + nameLength);
+        return CHARSET.decode(name).toString();
+    }
+
+    private Map.Entry<String, IrSignal> readRecord(int index, ByteBuffer record) throws InvalidArgumentException {
+        try {
+            int kind = record.get();
+            String name = readName(record);
+            Double frequency = decodeNullable(readVarint(record), 1.0);
+            Double dutyCycle = decodeNullable(readVarint(record), DUTYCYCLE_SCALE);
+            int introLength = readInt(record);
+            int repeatLength = readInt(record);
+            int endingLength = readInt(record);
+            long length = (long) introLength + repeatLength + endingLength;
+            if (length > record.remaining()) // every duration takes at least one byte
+                throw new InvalidArgumentException("Corrupt lengths in record " + index + " of capture corpus");
+            int[] durations = new int[(int) length];
+            for (int i = 0; i < durations.length; i++)
+                durations[i] = readInt(record);
+            // The array is fresh, so the sequences may use it directly.
+            IrSequence irSequence = IrSequence.wrap(durations, 0, durations.length);
+            IrSignal irSignal;
+            switch (kind) {
+                case KIND_IRSIGNAL:
+                    irSignal = new IrSignal(irSequence, introLength, repeatLength, frequency, dutyCycle);
+                    break;
+                case KIND_MODULATEDIRSEQUENCE:
+                    irSignal = new IrSignal(new ModulatedIrSequence(irSequence, 0, durations.length, frequency, dutyCycle));
+                    break;
+                default:
+                    throw new InvalidArgumentException("Unknown kind " + kind + " of record " + index + " in capture corpus");
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(name, irSignal);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new InvalidArgumentException("Truncated record " + index + " in capture corpus");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
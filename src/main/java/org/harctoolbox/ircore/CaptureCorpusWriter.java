@@ -0,0 +1,170 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.ircore;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import static org.harctoolbox.ircore.CaptureCorpus.*;
+
+/**
+ * Writes a capture corpus, as described in {@link CaptureCorpus}.
+ * The index is written when the writer is closed.
+ */
+public final class CaptureCorpusWriter implements Closeable {
+
+    /**
+     * Writes the named signals in the first argument to a new corpus file.
+     * @param signals
+     * @param filename
+     * @return Number of records written.
+     * @throws IOException
+     */
+    public static int convert(Iterator<Map.Entry<String, IrSignal>> signals, String filename) throws IOException {
+        try (CaptureCorpusWriter writer = new CaptureCorpusWriter(filename)) {
+            while (signals.hasNext()) {
+                Map.Entry<String, IrSignal> kvp = signals.next();
+                writer.write(kvp.getKey(), kvp.getValue());
+            }
+            return writer.size();
+        }
+    }
+
+    private final DataOutputStream out;
+    private final long maxFileSize;
+    private final ByteArrayOutputStream record;
+    private long position;
+    private long[] offsets;
+    private int size;
+    private boolean closed;
+
+    public CaptureCorpusWriter(String filename) throws IOException {
+        this(new FileOutputStream(filename));
+    }
+
+    public CaptureCorpusWriter(OutputStream outputStream) throws IOException {
+        this(outputStream, MAX_FILE_SIZE);
+    }
+
+    /**
+     * Mainly for testing.
+     * @param outputStream
+     * @param maxFileSize Maximal size of the file, including index and trailer.
+     * @throws IOException
+     */
+    CaptureCorpusWriter(OutputStream outputStream, long maxFileSize) throws IOException {
+        this.maxFileSize = maxFileSize;
+        out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        record = new ByteArrayOutputStream(1024);
+        offsets = new long[64];
+        size = 0;
+        closed = false;
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        position = HEADER_SIZE;
+    }
+
+    /**
+     * @return Number of records written so far.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Writes the IrSignal as named record.
+     * @param name Name of the record, null is written as the empty string.
+     * @param irSignal
+     * @throws IOException also if the corpus would get larger than supported by the reader; it can then still be closed.
+     */
+    public void write(String name, IrSignal irSignal) throws IOException {
+        writeRecord(KIND_IRSIGNAL, name, irSignal.getFrequency(), irSignal.getDutyCycle(),
+                irSignal.getIntroSequence(), irSignal.getRepeatSequence(), irSignal.getEndingSequence());
+    }
+
+    /**
+     * Writes the ModulatedIrSequence as named record.
+     * @param name Name of the record, null is written as the empty string.
+     * @param irSequence
+     * @throws IOException also if the corpus would get larger than supported by the reader; it can then still be closed.
+     */
+    public void write(String name, ModulatedIrSequence irSequence) throws IOException {
+        writeRecord(KIND_MODULATEDIRSEQUENCE, name, irSequence.getFrequency(), irSequence.getDutyCycle(),
+                irSequence, new IrSequence(), new IrSequence());
+    }
+
+    private void writeRecord(int kind, String name, Double frequency, Double dutyCycle, IrSequence intro, IrSequence repeat, IrSequence ending) throws IOException {
+        if (closed)
+            throw new IOException("CaptureCorpusWriter is closed");
+        record.reset();
+        record.write(kind);
+        byte[] nameBytes = (name != null ? name : "").getBytes(CHARSET);
+        writeVarint(record, nameBytes.length);
+        record.write(nameBytes, 0, nameBytes.length);
+        writeVarint(record, encodeNullable(frequency, 1.0));
+        writeVarint(record, encodeNullable(dutyCycle, DUTYCYCLE_SCALE));
+        writeVarint(record, intro.getLength());
+        writeVarint(record, repeat.getLength());
+        writeVarint(record, ending.getLength());
+        writeDurations(intro);
+        writeDurations(repeat);
+        writeDurations(ending);
+
+        // Checked before writing, so that the file, when closed, is readable.
+        if (position + record.size() + (size + 1L) * Long.BYTES + TRAILER_SIZE > maxFileSize)
+            throw new IOException("Capture corpus would exceed the maximal size of " + maxFileSize + " bytes");
+        if (size == offsets.length)
+            offsets = Arrays.copyOf(offsets, 2 * size);
+        offsets[size++] = position;
+        record.writeTo(out);
+        position += record.size();
+    }
+
+    private void writeDurations(IrSequence irSequence) {
+        for (int i = 0; i < irSequence.getLength(); i++)
+            writeVarint(record, Math.round(irSequence.get(i)));
+    }
+
+    /**
+     * Writes the index and the trailer, and closes the underlying stream.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            long indexPosition = position;
+            for (int i = 0; i < size; i++)
+                out.writeLong(offsets[i]);
+            out.writeLong(indexPosition);
+            out.writeInt(size);
+            out.write(INDEX_MAGIC);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+ */
+
+package org.harctoolbox.ircore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Removes the modulation from a (non-modulated) IrSequence consisting of on- and off-periods,
+ * as for example captured by a logic analyzer, see {@link ModulatedIrSequence#demodulate(IrSequence, double)}.
+ *
+ * <p>Gaps above the threshold separate flashes, so the input can be cut there without affecting the result.
+ * Long inputs are split into chunks at such gaps, which are demodulated in parallel into primitive arrays, and then stitched together.
+ * Frequency and duty cycle are estimated both for the whole sequence and per chunk.
+ */
+public final class Demodulator {
+
+    /**
+     * Default minimal number of on-off pairs in a chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 65536;
+
+    private final double threshold;
+    private final int chunkSize;
+
+    /**
+     * @param threshold Gaps less or equal to this quantity are squashed into a modulated flash.
+     * @param chunkSize Minimal number of on-off pairs in a chunk; inputs not longer than this are processed sequentially.
+     */
+    public Demodulator(double threshold, int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+    }
+
+    public Demodulator(double threshold) {
+        this(threshold, DEFAULT_CHUNK_SIZE);
+    }
+
+    public Demodulator() {
+        this(ModulatedIrSequence.DEFAULT_DEMODULATE_THRESHOLD);
+    }
+
+    /**
+     * Demodulates the argument.
+     * @param irSequence input signal
+     * @return Result, containing the demodulated sequence as well as chunk statistics.
+     */
+    public Result demodulate(IrSequence irSequence) {
+        int[] boundaries = chunkBoundaries(irSequence);
+        int noChunks = boundaries.length - 1;
+        IntStream indices = IntStream.range(0, noChunks);
+        if (noChunks > 1)
+            indices = indices.parallel();
+        Chunk[] chunks = indices.mapToObj((int i) -> demodulate(irSequence, boundaries[i], boundaries[i + 1])).toArray(Chunk[]::new);
+        return new Result(chunks);
+    }
+
+    /**
+     * Returns the chunk boundaries (as indexes in the irSequence), including 0 and the length.
+     * Chunks end immediately after a gap larger than threshold.
+     */
+    private int[] chunkBoundaries(IrSequence irSequence) {
+        int length = irSequence.getLength();
+        if (chunkSize >= length / 2)
+            return new int[] { 0, length };
+        int step = 2 * chunkSize;
+        int[] boundaries = new int[length / step + 2];
+        int n = 0;
+        boundaries[n++] = 0;
+        int i = step;
+        while (i < length) {
+            while (i < length && irSequence.get(i - 1) <= threshold)
+                i += 2;
+            if (i >= length)
+                break;
+            boundaries[n++] = i;
+            i += step;
+        }
+        boundaries[n++] = length;
+        return Arrays.copyOf(boundaries, n);
+    }
+
+    private Chunk demodulate(IrSequence irSequence, int begin, int end) {
+        double[] durations = new double[16];
+        int length = 0;
+        double pending = 0.0;
+        double sumPulses = 0.0;
+        double sumOn = 0.0;
+        int numberPulses = 0;
+        // The first pulse of the whole sequence is not counted, cf. the original, sequential implementation.
+        int begFlash = begin == 0 ? 0 : begin - 2;
+        for (int i = begin; i < end; i += 2) {
+            double on = irSequence.get(i);
+            double off = irSequence.get(i + 1);
+            pending += on;
+            if (off > threshold) {
+                if (length + 2 > durations.length)
+                    durations = Arrays.copyOf(durations, 2 * durations.length);
+                durations[length++] = pending;
+                durations[length++] = off;
+                pending = 0;
+                begFlash = i;
+            } else {
+                pending += off;
+                if (i > begFlash) {
+                    sumPulses += on + off;
+                    sumOn += on;
+                    numberPulses++;
+                }
+            }
+        }
+        return new Chunk(begin, end - begin, durations, length, sumPulses, sumOn, numberPulses);
+    }
+
+    /**
+     * Result of one chunk of the input.
+     */
+    public static final class Chunk {
+        private final int start;
+        private final int inputLength;
+        private final double[] durations;
+        private final int length;
+        private final double sumPulses;
+        private final double sumOn;
+        private final int numberPulses;
+
+        private Chunk(int start, int inputLength, double[] durations, int length, double sumPulses, double sumOn, int numberPulses) {
+            this.start = start;
+            this.inputLength = inputLength;
+            this.durations = durations;
+            this.length = length;
+            this.sumPulses = sumPulses;
+            this.sumOn = sumOn;
+            this.numberPulses = numberPulses;
+        }
+
+        /**
+         * @return Index of the first duration of the chunk in the input sequence.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return Number of durations of the input sequence in the chunk.
+         */
+        public int getInputLength() {
+            return inputLength;
+        }
+
+        /**
+         * @return Number of durations of the demodulated chunk.
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * @return Modulation frequency estimate for the chunk, NaN if it contains no modulation pulses.
+         */
+        public double getFrequency() {
+            return numberPulses / IrCoreUtils.microseconds2seconds(sumPulses);
+        }
+
+        /**
+         * @return Duty cycle estimate for the chunk, NaN if it contains no modulation pulses.
+         */
+        public double getDutyCycle() {
+            return sumOn / sumPulses;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + (start + inputLength) + "): length=" + length
+                    + ", f=" + Math.round(getFrequency()) + ", dc=" + getDutyCycle();
+        }
+    }
+
+    /**
+     * Result of demodulation.
+     */
+    public static final class Result {
+        private final List<Chunk> chunks;
+        private final ModulatedIrSequence modulatedIrSequence;
+
+        private Result(Chunk[] chunkArray) {
+            chunks = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(chunkArray)));
+            int length = 0;
+            double sumPulses = 0.0;
+            double sumOn = 0.0;
+            int numberPulses = 0;
+            for (Chunk chunk : chunkArray) {
+                length += chunk.length;
+                sumPulses += chunk.sumPulses;
+                sumOn += chunk.sumOn;
+                numberPulses += chunk.numberPulses;
+            }
+            double[] durations = new double[length];
+            int pos = 0;
+            for (Chunk chunk : chunkArray) {
+                System.arraycopy(chunk.durations, 0, durations, pos, chunk.length);
+                pos += chunk.length;
+            }
+
+            double frequency = numberPulses / IrCoreUtils.microseconds2seconds(sumPulses);
+            double dutyCycle = sumOn / sumPulses;
+            try {
+                modulatedIrSequence = new ModulatedIrSequence(durations, frequency, dutyCycle);
+            } catch (OddSequenceLengthException ex) {
+                throw new ThisCannotHappenException(ex);
+            }
+        }
+
+        /**
+         * @return The demodulated sequence, with frequency and duty cycle estimated from the whole input.
+         */
+        public ModulatedIrSequence getModulatedIrSequence() {
+            return modulatedIrSequence;
+        }
+
+        /**
+         * @return The chunks, in input order.
+         */
+        public List<Chunk> getChunks() {
+            return chunks;
+        }
+    }
+}
@@ -59,6 +59,7 @@ public final class IrCoreUtils {
      * Default absolute tolerance in micro seconds.
      */
     public static final double DEFAULT_ABSOLUTE_TOLERANCE = 100;
+    private static final int COMPARE_BLOCK_SIZE = 16;
 
     /**
      * Default relative tolerance as a number between 0 and 1.
@@ -607,21 +608,87 @@ public final class IrCoreUtils {
         if (x == null || y == null)
             return false;
 
-        double absDiff = Math.abs(x - y);
-        boolean absoluteOk = absDiff <= absoluteTolerance;
-        if (absoluteOk)
-            return true;
+        return approximatelyEquals(x.doubleValue(), y.doubleValue(), absoluteTolerance, relativeTolerance);
+    }
 
+    public static boolean approximatelyEquals(Double x, Double y) {
+        return approximatelyEquals(x, y, DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE);
+    }
+
+    /**
+     * Tests for approximate equality. Primitive version of {@link #approximatelyEquals(Double, Double, double, double)},
+     * with identical semantics, but without boxing and with fewer branches.
+     *
+     * @param x first argument
+     * @param y second argument
+     * @param absoluteTolerance
+     * @param relativeTolerance
+     * @return true if either absolute or relative requirement is satisfied.
+     */
+    public static boolean approximatelyEquals(double x, double y, double absoluteTolerance, double relativeTolerance) {
+        double absDiff = Math.abs(x - y);
         double max = Math.max(Math.abs(x), Math.abs(y));
-        if (max < 1)
-            return false;
+        return (absDiff <= absoluteTolerance) | ((max >= 1) & (absDiff / max <= relativeTolerance));
+    }
 
-        double relDiff = absDiff / max;
-        return relDiff <= relativeTolerance;
+    /**
+     * Compares the segments of length {@code length} of the arrays, starting at xStart and yStart respectively,
+     * element-wise for approximate equality, in the sense of {@link #approximatelyEquals(double, double, double, double)}.
+     * The inner loop works block-wise, and is free of branches, in order to enable the JIT compiler to vectorize it.
+     *
+     * @param x first array
+     * @param xStart start index in x
+     * @param y second array
+     * @param yStart start index in y
+     * @param length number of elements to compare
+     * @param absoluteTolerance
+     * @param relativeTolerance
+     * @return true if all elements are approximately equal.
+     */
+    public static boolean approximatelyEquals(double[] x, int xStart, double[] y, int yStart, int length, double absoluteTolerance, double relativeTolerance) {
+        for (int block = 0; block < length; block += COMPARE_BLOCK_SIZE) {
+            int end = Math.min(block + COMPARE_BLOCK_SIZE, length);
+            boolean ok = true;
+            for (int i = block; i < end; i++) {
+                double a = x[xStart + i];
+                double b = y[yStart + i];
+                double absDiff = Math.abs(a - b);
+                double max = Math.max(Math.abs(a), Math.abs(b));
+                ok &= (absDiff <= absoluteTolerance) | ((max >= 1) & (absDiff / max <= relativeTolerance));
+            }
+            if (!ok)
+                return false;
+        }
+        return true;
     }
 
-    public static boolean approximatelyEquals(Double x, Double y) {
-        return approximatelyEquals(x, y, DEFAULT_ABSOLUTE_TOLERANCE, DEFAULT_RELATIVE_TOLERANCE);
+    /**
+     * Same as {@link #approximatelyEquals(double[], int, double[], int, int, double, double)}, for int arrays.
+     *
+     * @param x first array
+     * @param xStart start index in x
+     * @param y second array
+     * @param yStart start index in y
+     * @param length number of elements to compare
+     * @param absoluteTolerance
+     * @param relativeTolerance
+     * @return true if all elements are approximately equal.
+     */
+    public static boolean approximatelyEquals(int[] x, int xStart, int[] y, int yStart, int length, double absoluteTolerance, double relativeTolerance) {
+        for (int block = 0; block < length; block += COMPARE_BLOCK_SIZE) {
+            int end = Math.min(block + COMPARE_BLOCK_SIZE, length);
+            boolean ok = true;
+            for (int i = block; i < end; i++) {
+                double a = x[xStart + i];
+                double b = y[yStart + i];
+                double absDiff = Math.abs(a - b);
+                double max = Math.max(Math.abs(a), Math.abs(b));
+                ok &= (absDiff <= absoluteTolerance) | ((max >= 1) & (absDiff / max <= relativeTolerance));
+            }
+            if (!ok)
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -643,6 +710,13 @@ public final class IrCoreUtils {
         return relativeOk;
     }
 
+    /**
+     * Same as \s in regular expressions.
+     */
+    static boolean isSpace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\r' || ch == '\f' || ch == '\u000B';
+    }
+
     public static long maskTo(long data, int width) {
         return data & ones(width);
     }
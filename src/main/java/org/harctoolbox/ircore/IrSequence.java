@@ -16,6 +16,10 @@ this program. If not, see http://www.gnu.org/licenses/.
  */
 package org.harctoolbox.ircore;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -37,11 +41,32 @@ import java.util.StringJoiner;
  * <p>The class is (almost) immutable: it can only be constructed and then read from.
  * Also note that there is no modulation frequency herein.
  *
+ * <p>Internally, the durations are stored either as doubles, or, if they are all integers
+ * (which is the case with most captured signals), in a compact form as an int array.
+ * The latter uses half the memory, and makes {@link #toInts()} trivial.
+ * The representation is transparent to the user; it is converted only when needed.
+ * See {@link #isCompact()} and {@link #compact()}.
+ *
+ * <p>Subsequences, as generated by {@link #subSequence(int, int)}, {@link #truncate(int)}, {@link #chop(double)},
+ * and {@link #IrSequence(IrSequence, int, int)}, are views, sharing the data of the original
+ * (copy-on-write for in-place operations like {@link #replaceZeros(double)}).
+ * Note that a view thus keeps the entire data of its original reachable;
+ * use {@link #IrSequence(IrSequence)} to get a free-standing copy.
+ *
  * @see ModulatedIrSequence
  *
  */
 public class IrSequence implements Cloneable, Serializable {
 
+    private static final long serialVersionUID = -6342458715768644088L;
+
+    /**
+     * The serial form is that of earlier versions: the durations as double array, nothing else.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("data", double[].class)
+    };
+
     private static final double EPSILON = 0.001;
     public static final double DUMMYGAPDURATION = 50000d; // should not translate to 0000 in Pronto
     public static final IrSequence EMPTY = new IrSequence();
@@ -72,17 +97,23 @@ public class IrSequence implements Cloneable, Serializable {
      */
     public static IrSequence concatenate(Collection<IrSequence> sequences) {
         int totalLength = 0;
-        totalLength = sequences.stream().map((seq) -> seq.data.length).reduce(totalLength, Integer::sum);
-        double[] data = new double[totalLength];
-        int pos = 0;
+        boolean allCompact = true;
         for (IrSequence seq : sequences) {
-            System.arraycopy(seq.data, 0, data, pos, seq.data.length);
-            pos += seq.data.length;
+            totalLength += seq.getLength();
+            allCompact = allCompact && seq.isCompact();
         }
-        try {
-            return new IrSequence(data);
-        } catch (OddSequenceLengthException ex) {
-            throw new ThisCannotHappenException();
+        if (allCompact) {
+            int[] data = new int[totalLength];
+            int pos = 0;
+            for (IrSequence seq : sequences)
+                pos = seq.copyTo(data, pos);
+            return new IrSequence(null, data);
+        } else {
+            double[] data = new double[totalLength];
+            int pos = 0;
+            for (IrSequence seq : sequences)
+                pos = seq.copyTo(data, pos);
+            return new IrSequence(data, (int[]) null);
         }
     }
 
@@ -153,10 +184,23 @@ public class IrSequence implements Cloneable, Serializable {
 
         int[] result = new int[length];
         int index = 0;
-        for (IrSequence seq : list) {
-            int[] array = seq.toInts();
-            System.arraycopy(array, 0, result, index, array.length);
-            index += array.length;
+        for (IrSequence seq : list)
+            index = seq.copyRoundedTo(result, index);
+
+        return result;
+    }
+
+    /**
+     * Returns the absolute values of the argument as int array, if they are all integers, otherwise null.
+     */
+    private static int[] integralAbs(double[] inData) {
+        int[] result = new int[inData.length];
+        for (int i = 0; i < inData.length; i++) {
+            double d = Math.abs(inData[i]);
+            int n = (int) d;
+            if (n != d)
+                return null;
+            result[i] = n;
         }
         return result;
     }
@@ -192,12 +236,39 @@ public class IrSequence implements Cloneable, Serializable {
         return stringsToDoubles(strings);
     }
 
+    /**
+     * Parses the numbers in the string, ignoring "decorations" like signs, commas and semicolons.
+     * Equivalent to {@code stringsToDoubles(stripDecoratedString(string).split("\\s+"))},
+     * but hand written, avoiding regular expressions and intermediate strings.
+     */
     private static double[] toDoubles(String string) {
         if (string == null || string.trim().isEmpty())
             return new double[0];
-        String str = stripDecoratedString(string);
-        String[] strings = str.trim().split("\\s+");
-        return stringsToDoubles(strings);
+
+        double[] result = new double[16];
+        int count = 0;
+        int length = string.length();
+        int i = 0;
+        while (true) {
+            while (i < length && isDecoration(string.charAt(i)))
+                i++;
+            if (i == length)
+                break;
+            int start = i;
+            while (i < length && !isDecoration(string.charAt(i)))
+                i++;
+            if (count == result.length)
+                result = Arrays.copyOf(result, 2 * count);
+            result[count++] = Double.parseDouble(string.substring(start, i));
+        }
+        if (count == 0)
+            // only decorations; behave like Double.parseDouble("")
+            throw new NumberFormatException("empty String");
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static boolean isDecoration(char ch) {
+        return ch == '+' || ch == '-' || ch == ',' || ch == ';' || IrCoreUtils.isSpace(ch);
     }
 
     /**
@@ -219,14 +290,44 @@ public class IrSequence implements Cloneable, Serializable {
     /**
      * Duration data, all positive. Even indices are considered flashes, even ones gaps.
      * By definition they are interleaving.
+     * Null if the sequence is compact, i.e. stored in intData.
      */
     private double[] data;
 
+    /**
+     * Duration data in compact form, in integer microseconds, otherwise as data.
+     * Exactly one of data and intData is non-null.
+     */
+    private int[] intData;
+
+    /**
+     * Start of the data of this sequence in data or intData; non-zero only for views.
+     */
+    private int offset;
+
+    /**
+     * Number of durations, not necessarily the length of the array.
+     */
+    private int length;
+
+    /**
+     * If true, the data array may be shared with other instances, and must be copied before being modified.
+     */
+    private boolean shared;
+
     /**
      * Constructs an empty IrSequence,
      */
     public IrSequence() {
-        data = new double[0];
+        own(null, new int[0]);
+    }
+
+    /**
+     * Takes ownership of the arrays given as argument, exactly one of them should be non-null.
+     * Data must be non-negative and of even length.
+     */
+    private IrSequence(double[] data, int[] intData) {
+        own(data, intData);
     }
 
     /**
@@ -302,9 +403,35 @@ public class IrSequence implements Cloneable, Serializable {
         if (offset + length > idata.length)
             throw new InvalidArgumentException("IrSequence: length too large.");
 
-        data = new double[length];
+        int[] array = new int[length];
         for (int i = 0; i < length; i++)
-            data[i] = Math.abs(idata[i+offset]);
+            array[i] = Math.abs(idata[i+offset]);
+        own(null, array);
+    }
+
+    /**
+     * Returns an IrSequence using the argument array as its data, without copying.
+     * The array must not be modified as long as the IrSequence is in use.
+     * If the selected part contains negative entries, it is instead copied with the signs removed.
+     * @param durations Data, in micro seconds.
+     * @param offset First index to be used
+     * @param length Length of used subset of the durations array, must be even.
+     * @return IrSequence
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    public static IrSequence wrap(int[] durations, int offset, int length) throws InvalidArgumentException {
+        checkOddLength(length);
+        if (offset < 0 || length < 0 || offset + length > durations.length)
+            throw new InvalidArgumentException("Selection extends beyond end.");
+        for (int i = offset; i < offset + length; i++)
+            if (durations[i] < 0)
+                return new IrSequence(durations, offset, length);
+
+        IrSequence irSequence = new IrSequence(null, durations);
+        irSequence.offset = offset;
+        irSequence.length = length;
+        irSequence.shared = true;
+        return irSequence;
     }
 
     /**
@@ -312,11 +439,13 @@ public class IrSequence implements Cloneable, Serializable {
      * @param src Original
      */
     public IrSequence(IrSequence src) {
-        data = src.data.clone();
+        own(src.data != null ? Arrays.copyOfRange(src.data, src.offset, src.offset + src.length) : null,
+                src.intData != null ? Arrays.copyOfRange(src.intData, src.offset, src.offset + src.length) : null);
     }
 
     /**
-     *
+     * Constructs a view of a part of the src argument, sharing its data.
+     * Runs in constant time.
      * @param src
      * @param start
      * @param length
@@ -325,28 +454,151 @@ public class IrSequence implements Cloneable, Serializable {
     public IrSequence(IrSequence src, int start, int length) throws InvalidArgumentException {
         if (start % 2 != 0 || length % 2 != 0)
             throw new OddSequenceLengthException("Start and length must be even");
-        if (start + length > src.data.length)
+        if (start < 0 || length < 0 || start + length > src.getLength())
             throw new InvalidArgumentException("Selection extends beyond end.");
-        data = new double[length];
-        System.arraycopy(src.data, start, data, 0, length);
+        data = src.data;
+        intData = src.intData;
+        offset = src.offset + start;
+        this.length = length;
+        shared = true;
+        src.shared = true;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("data", toDoubles());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        double[] array = (double[]) fields.get("data", null);
+        setup(array != null ? array : new double[0]);
+    }
+
+    private void own(double[] data, int[] intData) {
+        this.data = data;
+        this.intData = intData;
+        offset = 0;
+        length = data != null ? data.length : intData.length;
+        shared = false;
     }
 
     private void setup(double[] inData) {
-        this.data = new double[inData.length];
+        int[] ints = integralAbs(inData);
+        if (ints != null) {
+            own(null, ints);
+            return;
+        }
+
+        double[] array = new double[inData.length];
         int i = 0;
         for (double d : inData) {
-            data[i] = Math.abs(d);
+            array[i] = Math.abs(d);
             i++;
         }
+        own(array, null);
     }
 
     private void setup(int[] inData) {
-        this.data = new double[inData.length];
+        int[] array = new int[inData.length];
         int i = 0;
         for (int d : inData) {
-            data[i] = Math.abs(d);
+            array[i] = Math.abs(d);
             i++;
         }
+        own(null, array);
+    }
+
+    /**
+     * Returns true if the data is stored in the compact (int) form.
+     * @return true if compact.
+     */
+    public final boolean isCompact() {
+        return intData != null;
+    }
+
+    /**
+     * Returns a compact version of the current sequence, with all durations rounded to integer microseconds.
+     * If the current sequence is already compact, a copy is returned.
+     * @return new IrSequence, compact.
+     */
+    public IrSequence compact() {
+        return new IrSequence(null, toInts());
+    }
+
+    /**
+     * Converts the representation to doubles; to be called before in-place manipulations
+     * that might produce non-integer values.
+     */
+    private void expand() {
+        if (intData == null)
+            return;
+
+        double[] array = new double[length];
+        copyTo(array, 0);
+        own(array, null);
+    }
+
+    /**
+     * Makes sure that the data is not shared with any other instance, by copying it if necessary.
+     */
+    private void unshare() {
+        if (shared)
+            own(data != null ? Arrays.copyOfRange(data, offset, offset + length) : null,
+                    intData != null ? Arrays.copyOfRange(intData, offset, offset + length) : null);
+    }
+
+    /**
+     * Adds amount to the i'th duration, in-place. Keeps the compact form when possible.
+     */
+    private void add(int i, double amount) {
+        unshare();
+        if (intData != null) {
+            long sum = intData[i] + (long) amount;
+            if (sum == intData[i] + amount && sum <= Integer.MAX_VALUE && sum >= Integer.MIN_VALUE) {
+                intData[i] = (int) sum;
+                return;
+            }
+            expand();
+        }
+        data[i] += amount;
+    }
+
+    private void set(int i, double value) {
+        unshare();
+        if (intData != null) {
+            int n = (int) value;
+            if (n == value) {
+                intData[i] = n;
+                return;
+            }
+            expand();
+        }
+        data[i] = value;
+    }
+
+    private int copyTo(double[] dest, int pos) {
+        if (intData != null)
+            for (int i = 0; i < length; i++)
+                dest[pos + i] = intData[offset + i];
+        else
+            System.arraycopy(data, offset, dest, pos, length);
+        return pos + length;
+    }
+
+    private int copyTo(int[] dest, int pos) {
+        System.arraycopy(intData, offset, dest, pos, length);
+        return pos + length;
+    }
+
+    private int copyRoundedTo(int[] dest, int pos) {
+        if (intData != null)
+            return copyTo(dest, pos);
+
+        for (int i = 0; i < length; i++)
+            dest[pos + i] = (int) Math.round(data[offset + i]);
+        return pos + length;
     }
 
     /**
@@ -356,7 +608,7 @@ public class IrSequence implements Cloneable, Serializable {
      * @return duration in microseconds,
      */
     public final double get(int i) {
-        return data[i];
+        return intData != null ? intData[offset + i] : data[offset + i];
     }
 
     /**
@@ -365,10 +617,8 @@ public class IrSequence implements Cloneable, Serializable {
      * @return integer array of durations in micro seconds.
      */
     public final int[] toInts() {
-        int[] array = new int[data.length];
-        for (int i = 0; i < data.length; i++)
-            array[i] = (int) Math.round(data[i]);
-
+        int[] array = new int[getLength()];
+        copyRoundedTo(array, 0);
         return array;
     }
 
@@ -378,7 +628,9 @@ public class IrSequence implements Cloneable, Serializable {
      * @return double array of durations in micro seconds.
      */
     public final double[] toDoubles() {
-        return data.clone();
+        double[] array = new double[length];
+        copyTo(array, 0);
+        return array;
     }
 
     /**
@@ -387,9 +639,9 @@ public class IrSequence implements Cloneable, Serializable {
      * @return integer array of durations in periods of frequency.
      */
     public final int[] toPulses(double frequency) {
-        int[] array = new int[data.length];
-        for (int i = 0; i < data.length; i++)
-            array[i] = (int) Math.round(Math.abs(frequency*data[i]/1000000.0));
+        int[] array = new int[getLength()];
+        for (int i = 0; i < array.length; i++)
+            array[i] = (int) Math.round(Math.abs(frequency*get(i)/1000000.0));
 
         return array;
     }
@@ -402,14 +654,19 @@ public class IrSequence implements Cloneable, Serializable {
      * @return new IrSequence
      */
     public IrSequence append(IrSequence tail, int repetitions) {
-        double[] newData = new double[data.length + repetitions*tail.data.length];
-        System.arraycopy(data, 0, newData, 0, data.length);
-        for (int r = 0; r < repetitions; r++)
-            System.arraycopy(tail.data, 0, newData, data.length + r*tail.data.length, tail.data.length);
-        try {
-            return new IrSequence(newData);
-        } catch (OddSequenceLengthException ex) {
-            throw new ThisCannotHappenException();
+        int newLength = getLength() + repetitions*tail.getLength();
+        if (isCompact() && tail.isCompact()) {
+            int[] newData = new int[newLength];
+            int pos = copyTo(newData, 0);
+            for (int r = 0; r < repetitions; r++)
+                pos = tail.copyTo(newData, pos);
+            return new IrSequence(null, newData);
+        } else {
+            double[] newData = new double[newLength];
+            int pos = copyTo(newData, 0);
+            for (int r = 0; r < repetitions; r++)
+                pos = tail.copyTo(newData, pos);
+            return new IrSequence(newData, (int[]) null);
         }
     }
 
@@ -430,10 +687,10 @@ public class IrSequence implements Cloneable, Serializable {
      * @throws InvalidArgumentException
      */
     public IrSequence append(double delay) throws InvalidArgumentException {
-        if (data.length == 0)
+        if (isEmpty())
             throw new InvalidArgumentException("IrSequence is empty");
         IrSequence irSequence = new IrSequence(this);
-        irSequence.data[data.length-1] += delay;
+        irSequence.add(getLength() - 1, delay);
         return irSequence;
     }
 
@@ -447,7 +704,8 @@ public class IrSequence implements Cloneable, Serializable {
         IrSequence result;
         try {
             result = (IrSequence) super.clone();
-            result.data = this.data.clone();
+            result.shared = true;
+            result.unshare();
         } catch (CloneNotSupportedException ex) {
             throw new ThisCannotHappenException(ex);
         }
@@ -456,6 +714,7 @@ public class IrSequence implements Cloneable, Serializable {
 
     /**
      * Returns a new IrSequence consisting of the length durations.
+     * This is a view, sharing the data with the current object, constructed in constant time.
      * @param start Index of first duration
      * @param length Length of new sequence
      * @return IrSequence, a subsequence of the current
@@ -471,7 +730,7 @@ public class IrSequence implements Cloneable, Serializable {
 
     /**
      * Returns a new IrSequence consisting of the first length durations.
-     * Equivalent to subSequence with first argument 0.
+     * Equivalent to subSequence with first argument 0, in particular, a view.
      * @param length Length of new sequence
      * @return IrSequence
      * @throws InvalidArgumentException if length not even.
@@ -482,19 +741,20 @@ public class IrSequence implements Cloneable, Serializable {
 
     /**
      * Chops a IrSequence in parts. Every gap of length &ge; threshold cause a cut.
+     * The parts are views of the current object, so the time is proportional to the number of parts
+     * (in addition to the search for cuts).
      * @param threshold minimal gap in microseconds to cause a cut.
      * @return List of IrSequences
      */
     public List<IrSequence> chop(double threshold) {
         List<IrSequence> arrayList = new ArrayList<>(16);
         int beg = 0;
-        for (int i = 1; i < data.length; i += 2) {
-            if (data[i] >= threshold || i == data.length - 1) {
-                double[] arr = new double[i - beg + 1];
-                System.arraycopy(data, beg, arr, 0, i - beg + 1);
+        int length = getLength();
+        for (int i = 1; i < length; i += 2) {
+            if (get(i) >= threshold || i == length - 1) {
                 try {
-                    arrayList.add(new IrSequence(arr));
-                } catch (OddSequenceLengthException ex) {
+                    arrayList.add(subSequence(beg, i - beg + 1));
+                } catch (InvalidArgumentException ex) {
                     throw new ThisCannotHappenException();
                 }
                 beg = i + 1;
@@ -512,8 +772,8 @@ public class IrSequence implements Cloneable, Serializable {
     public IrSequence addToFlashes(double amount) {
         IrSequence clone = clone();
 
-        for (int i = 0; i < data.length; i += 2)
-            clone.data[i] += amount;
+        for (int i = 0; i < getLength(); i += 2)
+            clone.add(i, amount);
 
         return clone;
     }
@@ -528,8 +788,8 @@ public class IrSequence implements Cloneable, Serializable {
     public IrSequence addToGaps(double amount) {
         IrSequence clone = clone();
 
-        for (int i = 1; i < data.length; i += 2)
-            clone.data[i] += amount;
+        for (int i = 1; i < getLength(); i += 2)
+            clone.add(i, amount);
 
         return clone;
     }
@@ -556,10 +816,11 @@ public class IrSequence implements Cloneable, Serializable {
     public IrSequence addNoise(double max) {
         IrSequence clone = clone();
 
-        for (int i = 0; i < data.length; i += 2) {
+        clone.expand();
+        for (int i = 0; i < getLength(); i += 2) {
             double t = max * (2 * random.nextDouble() - 1);
-            clone.data[i] += t;
-            clone.data[i + 1] -= t;
+            clone.data[clone.offset + i] += t;
+            clone.data[clone.offset + i + 1] -= t;
         }
         return clone;
     }
@@ -583,13 +844,21 @@ public class IrSequence implements Cloneable, Serializable {
      * @return equality within tolerance.
      */
     public boolean approximatelyEquals(IrSequence irSequence, double absoluteTolerance, double relativeTolerance) {
-        if (irSequence == null || (data.length != irSequence.data.length))
+        if (irSequence == null || (getLength() != irSequence.getLength()))
             return false;
 
-        for (int i = 0; i < data.length; i++)
-            if (!IrCoreUtils.approximatelyEquals(data[i], irSequence.data[i], absoluteTolerance, relativeTolerance))
-                return false;
+        return approximatelyEquals(0, irSequence, 0, getLength(), absoluteTolerance, relativeTolerance);
+    }
+
+    private boolean approximatelyEquals(int start, IrSequence other, int otherStart, int len, double absoluteTolerance, double relativeTolerance) {
+        if (intData != null && other.intData != null)
+            return IrCoreUtils.approximatelyEquals(intData, offset + start, other.intData, other.offset + otherStart, len, absoluteTolerance, relativeTolerance);
+        if (data != null && other.data != null)
+            return IrCoreUtils.approximatelyEquals(data, offset + start, other.data, other.offset + otherStart, len, absoluteTolerance, relativeTolerance);
 
+        for (int i = 0; i < len; i++)
+            if (!IrCoreUtils.approximatelyEquals(get(start + i), other.get(otherStart + i), absoluteTolerance, relativeTolerance))
+                return false;
         return true;
     }
 
@@ -605,16 +874,14 @@ public class IrSequence implements Cloneable, Serializable {
      * @return if the subsequences are approximately equal.
      */
     public boolean approximatelyEquals(int beginning, int compareStart, int length, double absoluteTolerance, double relativeTolerance, double lastLimit) {
-        boolean specialTreatment = compareStart + length == data.length && lastLimit > 0;
-        for (int i = 0; i < (specialTreatment ? length - 1 : length); i++) {
-            if (!IrCoreUtils.approximatelyEquals(data[beginning+i], data[compareStart+i], absoluteTolerance, relativeTolerance))
-                return false;
-        }
+        boolean specialTreatment = compareStart + length == getLength() && lastLimit > 0;
+        if (!approximatelyEquals(beginning, this, compareStart, specialTreatment ? length - 1 : length, absoluteTolerance, relativeTolerance))
+            return false;
 
         if (specialTreatment) {
             if (!(
-                    IrCoreUtils.approximatelyEquals(data[beginning+length-1], data[compareStart+length-1], absoluteTolerance, relativeTolerance)
-                    || (data[beginning+length-1] >= lastLimit && data[compareStart+length-1] >= lastLimit)))
+                    IrCoreUtils.approximatelyEquals(get(beginning+length-1), get(compareStart+length-1), absoluteTolerance, relativeTolerance)
+                    || (get(beginning+length-1) >= lastLimit && get(compareStart+length-1) >= lastLimit)))
                 return false;
         }
         return true;
@@ -640,7 +907,7 @@ public class IrSequence implements Cloneable, Serializable {
      * @return number of gaps/flashes.
      */
     public final int getLength() {
-        return data.length;
+        return length;
     }
 
     /**
@@ -648,7 +915,7 @@ public class IrSequence implements Cloneable, Serializable {
      * @return last entry, or <code>null</code> if the data is empty.
      */
     public final Double getLastGap() {
-        return data.length > 0 ? data[data.length - 1] : null;
+        return isEmpty() ? null : get(getLength() - 1);
     }
 
     /**
@@ -656,7 +923,7 @@ public class IrSequence implements Cloneable, Serializable {
      * @return emptyness of the sequence.
      */
     public final boolean isEmpty() {
-        return data.length == 0;
+        return getLength() == 0;
     }
 
     /**
@@ -664,8 +931,8 @@ public class IrSequence implements Cloneable, Serializable {
      * @return existence of zero durations.
      */
     public final boolean containsZeros() {
-        for (double t : data)
-            if (t < EPSILON)
+        for (int i = 0; i < getLength(); i++)
+            if (get(i) < EPSILON)
                 return true;
         return false;
     }
@@ -677,9 +944,9 @@ public class IrSequence implements Cloneable, Serializable {
      */
     public final boolean replaceZeros(double replacement) {
         boolean wasChanged = false;
-        for (int i = 0; i < data.length; i++)
-            if (data[i] < EPSILON) {
-                data[i] = replacement;
+        for (int i = 0; i < getLength(); i++)
+            if (get(i) < EPSILON) {
+                set(i, replacement);
                 wasChanged = true;
             }
         return wasChanged;
@@ -691,7 +958,7 @@ public class IrSequence implements Cloneable, Serializable {
      * @return Length of the IR sequence in microseconds.
      */
     public final double getTotalDuration() {
-        return getTotalDuration(0, data.length);
+        return getTotalDuration(0, getLength());
     }
 
     /**
@@ -702,12 +969,12 @@ public class IrSequence implements Cloneable, Serializable {
      * @return Length of the IR sequence in microseconds.
      */
     public double getTotalDuration(int begin, int length) {
-        return IrCoreUtils.l1Norm(data, begin, length);
+        return intData != null ? IrCoreUtils.l1Norm(intData, offset + begin, length) : IrCoreUtils.l1Norm(data, offset + begin, length);
     }
 
     public int firstBigGap(int start, double limit) {
-        for (int i = start + start%2; i < this.data.length - 2; i += 2)
-            if (data[i+1] >= limit)
+        for (int i = start + start%2; i < getLength() - 2; i += 2)
+            if (get(i+1) >= limit)
                 return i+1;
         return -1;
     }
@@ -739,9 +1006,9 @@ public class IrSequence implements Cloneable, Serializable {
      */
     public String toString(boolean alternatingSigns, String separator, String prefix, String suffix) {
         StringJoiner stringJoiner = new StringJoiner(separator, prefix, suffix);
-        for (int i = 0; i < data.length; i++) {
+        for (int i = 0; i < getLength(); i++) {
             String sign = alternatingSigns ? (isFlash(i) ? "+" : "-") : "";
-            stringJoiner.add(sign + Long.toString(Math.round(data[i])));
+            stringJoiner.add(sign + Long.toString(Math.round(get(i))));
         }
         return stringJoiner.toString();
     }
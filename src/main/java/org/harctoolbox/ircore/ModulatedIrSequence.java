@@ -26,6 +26,9 @@ import java.util.List;
  * The name is slightly misleading since the modulation frequency can be 0; it just needs to be present.
  */
 public final class ModulatedIrSequence extends IrSequence {
+
+    private static final long serialVersionUID = 8560194364594903055L;
+
     private static final double ALLOWED_FREQUENCY_DEVIATION = 0.05;
     private static final double ZEROMODULATION_LIMIT = 0.000001;
     public static final double DEFAULT_FREQUENCY = 38000.0;
@@ -82,40 +85,10 @@ public final class ModulatedIrSequence extends IrSequence {
      * @param irSequence input signal
      * @param threshold Gaps less or equal to this quantity are squashed into a modulated flash.
      * @return ModulatedIrSequence
+     * @see Demodulator
      */
     public static ModulatedIrSequence demodulate(IrSequence irSequence, double threshold) {
-        List<Double> list = new ArrayList<>(128);
-        double pending = 0.0;
-        double sumPulses = 0.0;
-        double sumOn = 0.0;
-        int numberPulses = 0;
-        int begFlash = 0;
-        for (int i = 0; i < irSequence.getLength(); i += 2) {
-            pending += irSequence.get(i);
-            if (irSequence.get(i+1) > threshold) {
-                list.add(pending);
-                list.add(irSequence.get(i+1));
-                pending = 0;
-                begFlash = i;
-            } else {
-                pending += irSequence.get(i+1);
-                if (i > begFlash) {
-                    sumPulses += irSequence.get(i) + irSequence.get(i + 1);
-                    sumOn += irSequence.get(i);
-                    numberPulses++;
-                }
-            }
-        }
-
-        double freq = numberPulses/IrCoreUtils.microseconds2seconds(sumPulses);
-        double dutyCycle = sumOn/sumPulses;
-
-        try {
-            IrSequence seq = new IrSequence(list);
-            return new ModulatedIrSequence(seq, freq, dutyCycle);
-        } catch (OddSequenceLengthException ex) {
-            throw new ThisCannotHappenException(ex);
-        }
+        return new Demodulator(threshold).demodulate(irSequence).getModulatedIrSequence();
     }
 
     /**
@@ -181,16 +154,39 @@ public final class ModulatedIrSequence extends IrSequence {
     }
 
     /**
-     *
+     * Returns a ModulatedIrSequence using the argument array as its data, without copying, see
+     * {@link IrSequence#wrap(int[], int, int)}.
+     * @param durations Data, in micro seconds.
+     * @param offset First index to be used
+     * @param length Length of used subset of the durations array, must be even.
+     * @param frequency Modulation frequency in Hz. Use null for default
+     * @return ModulatedIrSequence
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    public static ModulatedIrSequence wrap(int[] durations, int offset, int length, Double frequency) throws InvalidArgumentException {
+        IrSequence irSequence = IrSequence.wrap(durations, offset, length);
+        return new ModulatedIrSequence(irSequence, 0, length, frequency);
+    }
+
+    /**
+     * Constructs a view of a part of the src argument, sharing its data.
      * @param src
      * @param start
      * @param length
      * @throws InvalidArgumentException
      */
     public ModulatedIrSequence(ModulatedIrSequence src, int start, int length) throws InvalidArgumentException {
+        this(src, start, length, src.frequency, src.dutyCycle);
+    }
+
+    private ModulatedIrSequence(IrSequence src, int start, int length, Double frequency) throws InvalidArgumentException {
+        this(src, start, length, frequency, null);
+    }
+
+    ModulatedIrSequence(IrSequence src, int start, int length, Double frequency, Double dutyCycle) throws InvalidArgumentException {
         super(src, start, length);
-        frequency = src.frequency;
-        dutyCycle = src.dutyCycle;
+        this.frequency = frequency;
+        this.dutyCycle = dutyCycle;
     }
 
     /**
@@ -372,14 +368,18 @@ public final class ModulatedIrSequence extends IrSequence {
         return new ModulatedIrSequence(irSequence, frequency, dutyCycle);
     }
 
+    /**
+     * Returns a view of a part of the current sequence, as ModulatedIrSequence.
+     * Since {@link IrSequence#chop(double)} and {@link IrSequence#truncate(int)} use this method,
+     * these return ModulatedIrSequences too.
+     * @param start Index of first duration
+     * @param length Length of new sequence
+     * @return ModulatedIrSequence, sharing the data with the current object.
+     * @throws InvalidArgumentException
+     */
     @Override
-    public List<IrSequence> chop(double amount) {
-        List<IrSequence> irSequences = super.chop(amount);
-        List<IrSequence> mods = new ArrayList<>(irSequences.size());
-        irSequences.forEach((seq) -> {
-            mods.add(new ModulatedIrSequence(seq, frequency, dutyCycle));
-        });
-        return mods;
+    public ModulatedIrSequence subSequence(int start, int length) throws InvalidArgumentException {
+        return new ModulatedIrSequence(this, start, length);
     }
 
     @Override
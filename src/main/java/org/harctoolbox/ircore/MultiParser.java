@@ -20,8 +20,83 @@ package org.harctoolbox.ircore;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Parses a string using a number of {@link IrSignalParser}s, in order, until one succeeds.
+ * Before that, the source is classified in one pass (see {@link #sniff(CharSequence)}), and parsers
+ * that certainly will not succeed on the source are skipped.
+ */
 public class MultiParser extends AbstractIrParser {
 
+    /**
+     * Coarse classification of the source string, as determined by {@link #sniff(CharSequence)}.
+     */
+    public enum Format {
+        /**
+         * Only groups of exactly four hexadecimal digits; Pronto Hex, possibly short Pronto.
+         */
+        prontoHex,
+
+        /**
+         * Starting with "[" (or "Freq="), raw data in brackets.
+         */
+        bracketedRaw,
+
+        /**
+         * Raw data containing signs.
+         */
+        signedRaw,
+
+        /**
+         * Anything else.
+         */
+        raw;
+    }
+
+    /**
+     * Classifies its argument, in one pass over the characters.
+     * @param source
+     * @return Format
+     */
+    public static Format sniff(CharSequence source) {
+        int length = source.length();
+        int begin = 0;
+        while (begin < length && IrCoreUtils.isSpace(source.charAt(begin)))
+            begin++;
+        if (begin == length)
+            return Format.raw;
+
+        char first = source.charAt(begin);
+        if (first == '[' || startsWith(source, begin, "Freq="))
+            return Format.bracketedRaw;
+
+        boolean pronto = true;
+        boolean signed = false;
+        int tokenLength = 0;
+        for (int i = begin; i < length; i++) {
+            char ch = source.charAt(i);
+            if (IrCoreUtils.isSpace(ch)) {
+                pronto = pronto && (tokenLength == 0 || tokenLength == Pronto.CHARS_IN_DIGIT);
+                tokenLength = 0;
+            } else {
+                tokenLength++;
+                pronto = pronto && Character.digit(ch, 16) >= 0;
+                signed = signed || ch == '+' || ch == '-';
+            }
+        }
+        pronto = pronto && (tokenLength == 0 || tokenLength == Pronto.CHARS_IN_DIGIT);
+
+        return pronto ? Format.prontoHex : signed ? Format.signedRaw : Format.raw;
+    }
+
+    private static boolean startsWith(CharSequence source, int begin, String prefix) {
+        if (source.length() - begin < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++)
+            if (source.charAt(begin + i) != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
     public static List<IrSignalParser> ircoreParsersList(String source) {
         List<IrSignalParser> parsersList = new ArrayList<>(4);
         parsersList.add(new ProntoParserLoose(source));
@@ -39,6 +114,7 @@ public class MultiParser extends AbstractIrParser {
     }
 
     private final List<IrSignalParser> parsers;
+    private Format format = null;
 
     public MultiParser(List<IrSignalParser> parsers, String source) {
         super(source);
@@ -61,9 +137,34 @@ public class MultiParser extends AbstractIrParser {
         parsers.add(0, newParser);
     }
 
+    /**
+     * Returns the format of the source, as determined by {@link #sniff(CharSequence)}.
+     * @return Format
+     */
+    public Format getFormat() {
+        if (format == null)
+            format = sniff(getSource());
+        return format;
+    }
+
+    /**
+     * Returns false if the parser in the argument certainly returns null from its toIrSignal and toModulatedIrSequence
+     * functions on the current source. Unknown parsers are always considered applicable.
+     */
+    private boolean isApplicable(IrSignalParser parser) {
+        if (parser instanceof ProntoParser)
+            // ProntoParser returns null iff not all tokens are four hex digits.
+            return getFormat() == Format.prontoHex;
+        if (parser instanceof BracketedIrSignalParser)
+            return getFormat() == Format.bracketedRaw;
+        return true;
+    }
+
     @Override
     public IrSignal toIrSignal(Double fallbackFrequency, Double dummyGap) throws InvalidArgumentException {
         for (IrSignalParser parser : parsers) {
+            if (!isApplicable(parser))
+                continue;
             IrSignal irSignal = parser.toIrSignal(fallbackFrequency, dummyGap);
             if (irSignal != null)
                 return irSignal;
@@ -86,6 +187,8 @@ public class MultiParser extends AbstractIrParser {
     @Override
     public ModulatedIrSequence toModulatedIrSequence(Double fallbackFrequency, Double dummyGap) throws InvalidArgumentException {
          for (IrSignalParser parser : parsers) {
+            if (!isApplicable(parser))
+                continue;
             ModulatedIrSequence modulatedirSequence = parser.toModulatedIrSequence(fallbackFrequency, dummyGap);
             if (modulatedirSequence != null)
                 return modulatedirSequence;
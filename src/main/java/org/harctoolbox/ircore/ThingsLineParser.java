@@ -20,19 +20,35 @@ package org.harctoolbox.ircore;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.LineNumberReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.xml.transform.TransformerException;
 import org.harctoolbox.xml.XmlUtils;
 import org.xml.sax.SAXException;
 
+/**
+ * Reads "things" (for example IrSignals) from a text source, using the ThingParser for each thing.
+ * The things are either available as List or Map, or, for large inputs, as lazy Stream, which are read,
+ * line by line, using memory independent of the size of the input.
+ * @param <T>
+ */
 public class ThingsLineParser<T> {
 
     private final static Logger logger = Logger.getLogger(ThingsLineParser.class.getName());
@@ -66,19 +82,69 @@ public class ThingsLineParser<T> {
     }
 
     public List<T> readThings(Reader reader, boolean multiLines) throws IOException {
-        BufferedReader in = new BufferedReader(reader);
-        List<T> list = new ArrayList<>(4);
-        while (true) {
-            try {
-                T thing = parseThing(in, multiLines);
-                if (thing == null)
-                    break;
-                list.add(thing);
-            } catch (IOException | InvalidArgumentException ex) {
-                logger.log(Level.FINE, "{0}", ex.getMessage());
-            }
+        try {
+            return streamThings(reader, multiLines, Level.FINE, false).collect(Collectors.toList());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
-        return list;
+    }
+
+    /**
+     * Lazily reads Ts from the file/url in the first argument.
+     * The returned Stream should be closed after use, preferably by try-with-resources.
+     * @param urlOrFilename
+     * @param charSetName name of character set.
+     * @param multiLines if true, successive lines are considered to belong to the same object, unless separated by empty lines.
+     * @return Stream of Ts read from the first argument.
+     * @throws IOException
+     */
+    public Stream<T> streamThings(String urlOrFilename, String charSetName, boolean multiLines) throws IOException {
+        InputStreamReader reader = IrCoreUtils.getInputReader(urlOrFilename, charSetName);
+        return streamThings(reader, multiLines).onClose(() -> close(reader));
+    }
+
+    public Stream<T> streamThings(String input, String xslt, String encoding, boolean multiLines) throws SAXException, IOException, UnsupportedEncodingException, TransformerException {
+        Objects.requireNonNull(xslt);
+        InputStreamReader reader = XmlUtils.mkReaderXml(input, xslt, encoding);
+        return streamThings(reader, multiLines).onClose(() -> close(reader));
+    }
+
+    /**
+     * Lazily reads Ts from the reader in the first argument.
+     * Unparseable things are logged, together with their line numbers, and skipped.
+     * I/O errors are thrown as UncheckedIOException.
+     * @param reader
+     * @param multiLines if true, successive lines are considered to belong to the same object, unless separated by empty lines.
+     * @return Stream of Ts, read on demand.
+     */
+    public Stream<T> streamThings(Reader reader, boolean multiLines) {
+        return streamThings(reader, multiLines, Level.WARNING, true);
+    }
+
+    /**
+     * @param errorLevel Level for logging unparseable things.
+     * @param skipNumberFormatErrors if false, a NumberFormatException is thrown to the caller, otherwise it is logged at WARNING and skipped.
+     */
+    private Stream<T> streamThings(Reader reader, boolean multiLines, Level errorLevel, boolean skipNumberFormatErrors) {
+        LineNumberReader in = new LineNumberReader(reader);
+        return toStream(new LookaheadIterator<T>() {
+            @Override
+            T computeNext() {
+                while (true) {
+                    try {
+                        return parseThing(in, multiLines);
+                    } catch (InvalidArgumentException ex) {
+                        logger.log(errorLevel, "Line {0}: {1}", new Object[]{in.getLineNumber(), ex.getMessage()});
+                    } catch (NumberFormatException ex) {
+                        if (!skipNumberFormatErrors)
+                            throw ex;
+                        logger.log(Level.WARNING, "Line {0}: {1}", new Object[]{in.getLineNumber(), ex.getMessage()});
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            }
+        });
     }
 
     public Map<String, T> readNamedThings(String urlOrFilename, String charSetName) throws IOException {
@@ -95,27 +161,84 @@ public class ThingsLineParser<T> {
     }
 
     public Map<String, T> readNamedThings(Reader reader) throws IOException {
-        BufferedReader in = new BufferedReader(reader);
         Map<String, T> map = new LinkedHashMap<>(4);
-        while (true) {
-            String line = in.readLine();
-            if (line == null)
-                break;
-            line = line.trim();
-            if (line.isEmpty() || (commentPrefix != null && line.startsWith(commentPrefix)))
-                continue;
-            String name = line;
-            try {
-                T thing = parseThing(in, true);
-                if (thing != null)
-                   map.put(name, thing);
-            } catch (NumberFormatException | InvalidArgumentException ex) {
-                logger.log(Level.WARNING, "{0}", ex.getMessage());
-            }
+        try {
+            streamNamedThings(reader).forEachOrdered((kvp) -> {
+                map.put(kvp.getKey(), kvp.getValue());
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
         }
         return map;
     }
 
+    /**
+     * Lazily reads named Ts from the file/url in the first argument.
+     * The returned Stream should be closed after use, preferably by try-with-resources.
+     * @param urlOrFilename
+     * @param charSetName name of character set.
+     * @return Stream of name-T pairs, in the order of the input. Names are not necessarily unique.
+     * @throws IOException
+     */
+    public Stream<Map.Entry<String, T>> streamNamedThings(String urlOrFilename, String charSetName) throws IOException {
+        InputStreamReader reader = IrCoreUtils.getInputReader(urlOrFilename, charSetName);
+        return streamNamedThings(reader).onClose(() -> close(reader));
+    }
+
+    public Stream<Map.Entry<String, T>> streamNamedThings(String namedInput, String xslt, String encoding) throws SAXException, IOException, TransformerException {
+        Objects.requireNonNull(xslt);
+        InputStreamReader reader = XmlUtils.mkReaderXml(namedInput, xslt, encoding);
+        return streamNamedThings(reader).onClose(() -> close(reader));
+    }
+
+    /**
+     * Lazily reads named Ts from the reader in the first argument. Every thing is preceded by a line containing its name.
+     * Unparseable things are logged, together with their line numbers, and skipped.
+     * I/O errors are thrown as UncheckedIOException.
+     * @param reader
+     * @return Stream of name-T pairs, in the order of the input. Names are not necessarily unique.
+     */
+    public Stream<Map.Entry<String, T>> streamNamedThings(Reader reader) {
+        LineNumberReader in = new LineNumberReader(reader);
+        return toStream(new LookaheadIterator<Map.Entry<String, T>>() {
+            @Override
+            Map.Entry<String, T> computeNext() {
+                try {
+                    while (true) {
+                        String line = in.readLine();
+                        if (line == null)
+                            return null;
+                        line = line.trim();
+                        if (line.isEmpty() || (commentPrefix != null && line.startsWith(commentPrefix)))
+                            continue;
+                        String name = line;
+                        try {
+                            T thing = parseThing(in, true);
+                            if (thing != null)
+                                return new AbstractMap.SimpleImmutableEntry<>(name, thing);
+                        } catch (NumberFormatException | InvalidArgumentException ex) {
+                            logger.log(Level.WARNING, "Line {0}: {1}", new Object[]{in.getLineNumber(), ex.getMessage()});
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        });
+    }
+
+    private static <E> Stream<E> toStream(Iterator<E> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static void close(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     T parseThing(BufferedReader in, boolean multiLines) throws IOException, InvalidArgumentException {
         ArrayList<String> list = new ArrayList<>(multiLines ? 4 : 1);
@@ -135,6 +258,34 @@ public class ThingsLineParser<T> {
         return (T) parser.newThing(list);
     }
 
+    /**
+     * Iterator that computes its elements on demand; null from computeNext() denotes the end.
+     */
+    private static abstract class LookaheadIterator<E> implements Iterator<E> {
+        private E next = null;
+        private boolean done = false;
+
+        abstract E computeNext();
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = computeNext();
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            E result = next;
+            next = null;
+            return result;
+        }
+    }
+
     public interface ThingParser {
         public Object newThing(List<String> list) throws InvalidArgumentException;
     }
@@ -23,7 +23,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.logging.Logger;
 import org.harctoolbox.ircore.IrSignal;
 import org.harctoolbox.ircore.ThisCannotHappenException;
 import org.w3c.dom.Document;
@@ -34,7 +33,7 @@ import org.w3c.dom.Element;
  */
 public final class Assignment extends IrpObject implements IrStreamItem, Numerical {
 
-    private static final Logger logger = Logger.getLogger(Assignment.class.getName());
+    //private static final Logger logger = Logger.getLogger(Assignment.class.getName());
 
     public static long parse(String str, NameEngine nameEngine) throws NameUnassignedException {
         Assignment assignment = new Assignment(str);
@@ -50,7 +49,7 @@ public final class Assignment extends IrpObject implements IrStreamItem, Numeric
     }
 
     private Assignment(ParserDriver parserDriver) {
-        this(parserDriver.getParser().assignment());
+        this(parserDriver.parse(IrpParser::assignment));
     }
 
     public Assignment(IrpParser.AssignmentContext assignment) {
@@ -161,7 +160,7 @@ public final class Assignment extends IrpObject implements IrStreamItem, Numeric
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> bitSpecStack, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnter(this));
+        recognizeData.traceEnter(this);
         try {
             String nameString = name.toString();
             BitwiseParameter val = value.toBitwiseParameter(recognizeData);
@@ -169,7 +168,7 @@ public final class Assignment extends IrpObject implements IrStreamItem, Numeric
         } catch (InvalidNameException ex) {
             throw new SignalRecognitionException(ex);
         }
-        logger.log(recognizeData.logRecordExit(this));
+        recognizeData.traceExit(this);
     }
 
     @Override
@@ -27,7 +27,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.logging.Logger;
 import org.harctoolbox.ircore.IrSignal;
 import org.harctoolbox.ircore.IrSignal.Pass;
 import org.w3c.dom.Document;
@@ -38,7 +37,7 @@ import org.w3c.dom.Element;
  */
 public final class BareIrStream extends IrpObject implements IrStreamItem {
 
-    private static final Logger logger = Logger.getLogger(BareIrStream.class.getName());
+    //private static final Logger logger = Logger.getLogger(BareIrStream.class.getName());
 
     static DurationType startingDurationType(BareIrStream bareIrStream, DurationType last, boolean gapFlashBitSpecs) {
         return bareIrStream == null ? DurationType.none : bareIrStream.startingDuratingType(last, gapFlashBitSpecs);
@@ -247,7 +246,7 @@ public final class BareIrStream extends IrpObject implements IrStreamItem {
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> bitSpecStack, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnter(this));
+        recognizeData.traceEnter(this);
         int currentLevel = recognizeData.getLevel();
         recognizeData.setLevel(currentLevel + 1);
         for (Iterator<IrStreamItem> it = irStreamItems.iterator(); it.hasNext();) {
@@ -255,7 +254,7 @@ public final class BareIrStream extends IrpObject implements IrStreamItem {
             irStreamItem.decode(recognizeData, bitSpecStack, isLast && !it.hasNext());
         }
         recognizeData.setLevel(currentLevel);
-        logger.log(recognizeData.logRecordExit(this));
+        recognizeData.traceExit(this);
     }
 
     @Override
@@ -42,7 +42,7 @@ public abstract class BitField extends IrpObject implements Numerical, EquationS
     }
 
     public static BitField newBitField(ParserDriver parserDriver) {
-        return newBitField(parserDriver.getParser().bitfield());
+        return newBitField(parserDriver.parse(IrpParser::bitfield));
     }
 
     public static BitField newBitField(IrpParser.BitfieldContext ctx) {
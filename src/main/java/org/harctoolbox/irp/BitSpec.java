@@ -65,7 +65,7 @@ public final class BitSpec extends IrpObject implements AggregateLister {
     private List<BareIrStream> bitCodes;
 
     public BitSpec(String str) {
-        this(new ParserDriver(str).getParser().bitspec());
+        this(ParserDriver.parseCached(ParserDriver.Rule.BITSPEC, str));
     }
 
     public BitSpec(IrpParser.BitspecContext ctx) {
@@ -232,7 +232,7 @@ public final class BitSpec extends IrpObject implements AggregateLister {
                     return false;
                 if (a == null)
                     a = on.get(0);
-                if (! (IrCoreUtils.approximatelyEquals(a, on.get(0), 1, 0) && IrCoreUtils.approximatelyEquals(-a, on.get(1), 1, 0)))
+                if (! (IrCoreUtils.approximatelyEquals((double) a, on.get(0), 1, 0) && IrCoreUtils.approximatelyEquals(-a, on.get(1), 1, 0)))
                     return false;
                 a = -a;
             } catch (NumberFormatException | NameUnassignedException | IrpInvalidArgumentException ex) {
@@ -59,7 +59,7 @@ public final class BitspecIrstream extends IrpObject implements IrStreamItem {
     }
 
     private BitspecIrstream(ParserDriver parserDriver) {
-        this(parserDriver.getParser().bitspec_irstream());
+        this(parserDriver.parse(IrpParser::bitspec_irstream));
     }
 
     public BitspecIrstream() {
@@ -147,14 +147,14 @@ public final class BitspecIrstream extends IrpObject implements IrStreamItem {
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> inheritedBitSpecs, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnterWithIrStream(this));
+        recognizeData.traceEnter(this);
         List<BitSpec> stack = new ArrayList<>(inheritedBitSpecs);
         stack.add(bitSpec);
         int currentLevel = recognizeData.getLevel();
         recognizeData.setLevel(currentLevel + 1);
         irStream.decode(recognizeData, stack, isLast);
         recognizeData.setLevel(currentLevel);
-        logger.log(recognizeData.logRecordExit(this));
+        recognizeData.traceExit(this);
     }
 
     @Override
@@ -0,0 +1,113 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.irp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.harctoolbox.ircore.IrSequence;
+
+/**
+ * Index of the plausible frame starts of one IrSequence: the beginning, and every flash following a big gap.
+ * For every position tried, the protocols whose lead-in matches there (see {@link PrefixTrie}) are remembered,
+ * so that they are computed only once, also when the position is reached through different decodes,
+ * as leading garbage is skipped, or as the rest of a decode is decoded recursively.
+ * A frame start where no protocol remains is not a candidate, and is skipped by {@link #next(int)}.
+ */
+final class CandidateStarts {
+
+    private final int length;
+    private final int[] starts;
+    private final DurationTable.Quantization quantization;
+    private final PrefixTrie prefixTrie;
+    private final Collection<NamedProtocol> protocols;
+    private final Map<Integer, Set<String>> rejected;
+    private final Map<Integer, List<NamedProtocol>> candidates;
+
+    /**
+     * @param irSequence
+     * @param minimumLeadout Gaps at least this long are considered to end a frame.
+     * @param quantization Quantization of irSequence.
+     * @param prefixTrie
+     * @param protocols The protocols to be tried, in order.
+     */
+    CandidateStarts(IrSequence irSequence, double minimumLeadout, DurationTable.Quantization quantization, PrefixTrie prefixTrie,
+            Collection<NamedProtocol> protocols) {
+        this.quantization = quantization;
+        this.prefixTrie = prefixTrie;
+        this.protocols = protocols;
+        length = irSequence.getLength();
+        int[] array = new int[length / 2 + 1];
+        int n = 0;
+        array[n++] = 0;
+        for (int i = 1; i < length - 1; i += 2)
+            if (irSequence.get(i) >= minimumLeadout)
+                array[n++] = i + 1;
+        starts = Arrays.copyOf(array, n);
+        rejected = new HashMap<>(2 * n);
+        candidates = new HashMap<>(2 * n);
+    }
+
+    /**
+     * @return Number of frame starts, including the beginning, whether candidates or not.
+     */
+    int size() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the first frame start after position where some protocol may match.
+     * The lead-ins are checked lazily, only for the frame starts passed.
+     * @param position
+     * @return The first candidate start after position, or -1 if none.
+     */
+    int next(int position) {
+        int index = Arrays.binarySearch(starts, position + 1);
+        for (int i = index >= 0 ? index : -index - 1; i < starts.length; i++)
+            if (!candidates(starts[i]).isEmpty())
+                return starts[i];
+        return -1;
+    }
+
+    /**
+     * Returns the names of the protocols that cannot start at position, computed only the first time.
+     * @param position
+     * @return Set of names, not to be modified.
+     */
+    Set<String> rejected(int position) {
+        return rejected.computeIfAbsent(position, (p) -> prefixTrie.rejected(quantization, p, length));
+    }
+
+    /**
+     * Returns the protocols that are not rejected at position, in the original order, computed only the first time.
+     * @param position
+     * @return List of protocols, possibly empty, not to be modified.
+     */
+    List<NamedProtocol> candidates(int position) {
+        return candidates.computeIfAbsent(position, (p) -> {
+            Set<String> names = rejected(p);
+            List<NamedProtocol> list = new ArrayList<>(protocols.size() - names.size());
+            protocols.stream().filter((protocol) -> !names.contains(protocol.getName())).forEach(list::add);
+            return list;
+        });
+    }
+}
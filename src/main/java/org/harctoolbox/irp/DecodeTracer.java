@@ -0,0 +1,41 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+
+package org.harctoolbox.irp;
+
+/**
+ * Receives the steps of the recognition of IrStreamItems, for debugging.
+ * By default, no tracer is installed, and decoding does not pay for tracing at all.
+ * @see RecognizeData#setDecodeTracer(DecodeTracer)
+ */
+public interface DecodeTracer {
+
+    /**
+     * Called when starting to decode the item.
+     * @param item
+     * @param recognizeData current state
+     */
+    public void enter(IrStreamItem item, RecognizeData recognizeData);
+
+    /**
+     * Called when the item has been successfully decoded.
+     * @param item
+     * @param recognizeData current state
+     */
+    public void exit(IrStreamItem item, RecognizeData recognizeData);
+}
@@ -38,6 +38,7 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrCoreUtils;
+import org.harctoolbox.ircore.IrSequence;
 import org.harctoolbox.ircore.IrSignal;
 import org.harctoolbox.ircore.ModulatedIrSequence;
 import org.harctoolbox.ircore.Pronto;
@@ -89,6 +90,18 @@ public final class Decoder {
     }
 
     private final Map<String, NamedProtocol> parsedProtocols;
+    private final DurationTable durationTable;
+    private final PrefixTrie prefixTrie;
+
+    /**
+     * For every protocol (lower case name), the protocols that may remove its decodes through prefer-over, directly or indirectly.
+     */
+    private final Map<String, Set<NamedProtocol>> preferOverRemovers;
+
+    /**
+     * The protocols, in the order of the decodes in the result of decodeIrSignal.
+     */
+    private final List<NamedProtocol> sortedProtocols;
 
     public Decoder(IrpDatabase irpDatabase) throws IrpParseException {
         this(irpDatabase, null);
@@ -127,31 +140,85 @@ public final class Decoder {
                 throw new ThisCannotHappenException(ex);
             }
         });
+        durationTable = new DurationTable(parsedProtocols.values());
+        prefixTrie = new PrefixTrie(parsedProtocols.values(), durationTable);
+        preferOverRemovers = preferOverRemovers(parsedProtocols.values());
+        sortedProtocols = new ArrayList<>(parsedProtocols.values());
+        Collections.sort(sortedProtocols);
+    }
+
+    /**
+     * Inverts the transitive closure of the static prefer-over relation, considering all prefer-overs as unconditional.
+     */
+    private static Map<String, Set<NamedProtocol>> preferOverRemovers(Collection<NamedProtocol> protocols) {
+        Map<String, NamedProtocol> byName = new HashMap<>(protocols.size());
+        protocols.forEach((protocol) -> {
+            byName.put(protocol.getName().toLowerCase(Locale.US), protocol);
+        });
+        Map<String, Set<NamedProtocol>> removers = new HashMap<>(protocols.size());
+        protocols.forEach((remover) -> {
+            List<String> stack = new ArrayList<>(remover.getPreferOverNames());
+            Set<String> visited = new HashSet<>(8);
+            while (!stack.isEmpty()) {
+                String name = stack.remove(stack.size() - 1).toLowerCase(Locale.US);
+                if (!visited.add(name))
+                    continue;
+                removers.computeIfAbsent(name, (k) -> new HashSet<>(4)).add(remover);
+                NamedProtocol removee = byName.get(name);
+                if (removee != null)
+                    stack.addAll(removee.getPreferOverNames());
+            }
+        });
+        return removers;
     }
 
     /**
      * Delivers a List of Map of Decodes from a ModulatedIrSequence.
+     * If first match is requested, only the first alternative at every position is kept.
      * @param irSequence
      * @param params
      * @return List of decodes.
      */
-    public DecodeTree decode(ModulatedIrSequence irSequence, DecoderParameters params) {
+    public DecodeTree decode(ModulatedIrSequence irSequence, DecoderParameters decoderParams) {
+        DecoderParameters params = decoderParams.withQuantizer(durationTable.newQuantizer());
         Map<Integer, Map<String, TrunkDecodeTree>> map = new HashMap<>(16);
-        DecodeTree decodes = decode(irSequence, 0, params, 0, map);
-        if (decodes.isEmpty() && params.isIgnoreLeadingGarbage()) {
-            int newStart = irSequence.firstBigGap(0, params.minimumLeadout) + 1;
-            return newStart > 0 ? decode(irSequence, newStart, params, 0, map) : decodes;
-        } else
-            return decodes;
+        DurationTable.Quantization quantization = params.getQuantizer().get(irSequence, params.getAbsoluteTolerance(), params.getRelativeTolerance());
+        CandidateStarts starts = new CandidateStarts(irSequence, params.minimumLeadout, quantization, prefixTrie, parsedProtocols.values());
+        DecodeTree decodes = decode(irSequence, 0, params, 0, map, starts);
+        if (params.isIgnoreLeadingGarbage())
+            // Skip frame after frame, until something decodes.
+            for (int start = starts.next(0); decodes.isEmpty() && start > 0; start = starts.next(start))
+                decodes = decode(irSequence, start, params, 0, map, starts);
+        if (params.isFirstMatch())
+            decodes.keepFirst();
+        return decodes;
+    }
+
+    /**
+     * Delivers a List of Map of Decodes from durations in an int array, for example as delivered by a receiver.
+     * The array is used directly, without copying, see {@link ModulatedIrSequence#wrap(int[], int, int, Double)}.
+     * @param durations Array containing the durations, in micro seconds.
+     * @param offset First index in durations to be used.
+     * @param length Number of durations to be used; must be even.
+     * @param frequency Modulation frequency; null for default.
+     * @param params
+     * @return List of decodes.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    public DecodeTree decode(int[] durations, int offset, int length, Double frequency, DecoderParameters params) throws InvalidArgumentException {
+        return decode(ModulatedIrSequence.wrap(durations, offset, length, frequency), params);
     }
 
-    private DecodeTree decode(ModulatedIrSequence irSequence, int position, DecoderParameters params, int level, Map<Integer, Map<String, TrunkDecodeTree>>map) {
+    private DecodeTree decode(ModulatedIrSequence irSequence, int position, DecoderParameters params, int level,
+            Map<Integer, Map<String, TrunkDecodeTree>> map, CandidateStarts starts) {
         logger.log(Level.FINE, String.format("level = %1$d position = %2$d", level, position));
         DecodeTree decodeTree = new DecodeTree(irSequence.getLength() - position);
         if (decodeTree.length == 0)
             return decodeTree;
 
-        parsedProtocols.values().forEach((namedProtocol) -> {
+        List<NamedProtocol> candidates = starts.candidates(position);
+        logger.log(Level.FINER, "{0} protocols rejected by their lead-in", parsedProtocols.size() - candidates.size());
+        candidates.forEach((namedProtocol) -> {
             try {
                 if (debugProtocolNamePattern != null)
                     if (debugProtocolNamePattern.matcher(namedProtocol.getName().toLowerCase(Locale.US)).matches())
@@ -162,7 +229,7 @@ public final class Decoder {
                 if (p != null && p.containsKey(namedProtocol.getName())) {
                     decode = p.get(namedProtocol.getName());
                 } else {
-                    decode = tryNamedProtocol(namedProtocol, irSequence, position, params, level, map);
+                    decode = tryNamedProtocol(namedProtocol, irSequence, position, params, level, map, starts);
                     if (!map.containsKey(position)) {
                         map.put(position, new HashMap<>(4));
                     }
@@ -184,15 +251,17 @@ public final class Decoder {
         return decodeTree;
     }
 
-    private TrunkDecodeTree tryNamedProtocol(NamedProtocol namedProtocol, ModulatedIrSequence irSequence, int position, DecoderParameters params, int level, Map<Integer, Map<String, TrunkDecodeTree>>map)
+    private TrunkDecodeTree tryNamedProtocol(NamedProtocol namedProtocol, ModulatedIrSequence irSequence, int position, DecoderParameters params, int level,
+            Map<Integer, Map<String, TrunkDecodeTree>> map, CandidateStarts starts)
             throws SignalRecognitionException, NamedProtocol.ProtocolNotDecodableException {
         Decode decode = namedProtocol.recognize(irSequence, position, params);
         if (params.isRemoveDefaultedParameters())
             decode.removeDefaulteds();
-        if (!params.recursive || decode.endPos == irSequence.getLength() - 1)
+        int next = decode.getEndPos() + 1;
+        if (!params.recursive || next == irSequence.getLength() || starts.candidates(next).isEmpty())
             return new TrunkDecodeTree(decode, irSequence.getLength());
 
-        DecodeTree rest = decode(irSequence, decode.getEndPos() + 1, params, level + 1, map);
+        DecodeTree rest = decode(irSequence, next, params, level + 1, map, starts);
         return new TrunkDecodeTree(decode, rest);
     }
 
@@ -212,24 +281,16 @@ public final class Decoder {
      * @param parameters
      * @return Map of decodes with protocol name as key.
      */
-    public SimpleDecodesSet decodeIrSignal(IrSignal irSignal, DecoderParameters parameters) {
+    public SimpleDecodesSet decodeIrSignal(IrSignal irSignal, DecoderParameters decoderParams) {
+        DecoderParameters parameters = decoderParams.withQuantizer(durationTable.newQuantizer());
+        if (parameters.isFirstMatch())
+            return decodeIrSignalFirstMatch(irSignal, parameters);
+
         List<Decode> decodes = new ArrayList<>(8);
         parsedProtocols.values().forEach((NamedProtocol namedProtocol) -> {
-            try {
-                if (debugProtocolNamePattern != null)
-                    if (debugProtocolNamePattern.matcher(namedProtocol.getName().toLowerCase(Locale.US)).matches())
-                        // This is intended to put a debugger breakpoint here
-                        logger.log(Level.FINEST, "Trying protocol {0}", namedProtocol.getName());
-                Map<String, Long> params = namedProtocol.recognize(irSignal, parameters);
-                if (parameters.isRemoveDefaultedParameters())
-                    namedProtocol.removeDefaulteds(params);
-                Decode decode = new Decode(namedProtocol, params);
+            Decode decode = tryNamedProtocol(namedProtocol, irSignal, parameters);
+            if (decode != null)
                 decodes.add(decode);
-            } catch (/*DomainViolationException |*/ SignalRecognitionException ex) {
-                logger.log(Level.FINE, String.format("Protocol %1$s did not decode: %2$s", namedProtocol.getName(), ex.getMessage()));
-            } catch (NamedProtocol.ProtocolNotDecodableException ex) {
-                throw new ThisCannotHappenException();
-            }
         });
         SimpleDecodesSet simpleDecodesSet = new SimpleDecodesSet(decodes);
 
@@ -240,6 +301,89 @@ public final class Decoder {
         return simpleDecodesSet;
     }
 
+    /**
+     * Delivers a Map of Decodes from an IrSignal, given as consecutive intro-, repeat-, and ending sequences in an int array.
+     * The array is used directly, without copying, see {@link IrSequence#wrap(int[], int, int)}.
+     * @param durations Array containing the durations, in micro seconds.
+     * @param offset Index of the start of the intro sequence in durations.
+     * @param introLength Length of the intro sequence.
+     * @param repeatLength Length of the repeat sequence.
+     * @param endingLength Length of the ending sequence.
+     * @param frequency Modulation frequency; null for default.
+     * @param parameters
+     * @return Map of decodes with protocol name as key.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    public SimpleDecodesSet decodeIrSignal(int[] durations, int offset, int introLength, int repeatLength, int endingLength,
+            Double frequency, DecoderParameters parameters) throws InvalidArgumentException {
+        IrSignal irSignal = new IrSignal(IrSequence.wrap(durations, offset, introLength),
+                IrSequence.wrap(durations, offset + introLength, repeatLength),
+                IrSequence.wrap(durations, offset + introLength + repeatLength, endingLength),
+                frequency);
+        return decodeIrSignal(irSignal, parameters);
+    }
+
+    private Decode tryNamedProtocol(NamedProtocol namedProtocol, IrSignal irSignal, DecoderParameters parameters) {
+        try {
+            if (debugProtocolNamePattern != null)
+                if (debugProtocolNamePattern.matcher(namedProtocol.getName().toLowerCase(Locale.US)).matches())
+                    // This is intended to put a debugger breakpoint here
+                    logger.log(Level.FINEST, "Trying protocol {0}", namedProtocol.getName());
+            Map<String, Long> params = namedProtocol.recognize(irSignal, parameters);
+            if (parameters.isRemoveDefaultedParameters())
+                namedProtocol.removeDefaulteds(params);
+            return new Decode(namedProtocol, params);
+        } catch (/*DomainViolationException |*/ SignalRecognitionException ex) {
+            logger.log(Level.FINE, String.format("Protocol %1$s did not decode: %2$s", namedProtocol.getName(), ex.getMessage()));
+            return null;
+        } catch (NamedProtocol.ProtocolNotDecodableException ex) {
+            throw new ThisCannotHappenException();
+        }
+    }
+
+    /**
+     * Delivers the first decode of {@link #decodeIrSignal(IrSignal, DecoderParameters)}, trying as few protocols as possible.
+     * The protocols are tried in the order of the result. A decode is returned as soon as all protocols that could remove it
+     * through (possibly indirect) prefer-over have been tried, and none of them did.
+     */
+    private SimpleDecodesSet decodeIrSignalFirstMatch(IrSignal irSignal, DecoderParameters parameters) {
+        Map<String, Decode> tried = new HashMap<>(16);
+        SimpleDecodesSet decodes = new SimpleDecodesSet(new ArrayList<>(4));
+        for (NamedProtocol namedProtocol : sortedProtocols) {
+            Decode decode = tryFirstMatchKept(namedProtocol, irSignal, parameters, tried, decodes);
+            if (decode == null)
+                continue;
+            List<Decode> result = new ArrayList<>(1);
+            result.add(decode);
+            return new SimpleDecodesSet(result);
+        }
+        return new SimpleDecodesSet(new ArrayList<>(0));
+    }
+
+    /**
+     * Tries the protocol, and, if it decodes, the protocols that could remove the decode through prefer-over.
+     * @return The decode, or null if the protocol did not decode, or if the decode is removed.
+     */
+    private Decode tryFirstMatchKept(NamedProtocol namedProtocol, IrSignal irSignal, DecoderParameters parameters, Map<String, Decode> tried, SimpleDecodesSet decodes) {
+        Decode decode = tryFirstMatch(namedProtocol, irSignal, parameters, tried, decodes);
+        if (decode == null || parameters.isAllDecodes())
+            return decode;
+        for (NamedProtocol remover : preferOverRemovers.getOrDefault(namedProtocol.getName().toLowerCase(Locale.US), Collections.emptySet()))
+            tryFirstMatch(remover, irSignal, parameters, tried, decodes);
+        return decodes.toBeRemoved(decode, parsedProtocols) ? null : decode;
+    }
+
+    private Decode tryFirstMatch(NamedProtocol namedProtocol, IrSignal irSignal, DecoderParameters parameters, Map<String, Decode> tried, SimpleDecodesSet decodes) {
+        String name = namedProtocol.getName();
+        if (tried.containsKey(name))
+            return tried.get(name);
+        Decode decode = tryNamedProtocol(namedProtocol, irSignal, parameters);
+        tried.put(name, decode);
+        if (decode != null)
+            decodes.add(decode);
+        return decode;
+    }
+
     public SimpleDecodesSet decodeIrSignal(IrSignal irSignal) {
         return decodeIrSignal(irSignal, new DecoderParameters());
     }
@@ -272,6 +416,8 @@ public final class Decoder {
         private Double minimumLeadout;
         private boolean override;
         private boolean ignoreLeadingGarbage;
+        private boolean firstMatch = false;
+        private DurationTable.Quantizer quantizer = null;
         /**
          *
          * @param strict If true, intro-, repeat-, and ending sequences are
@@ -322,10 +468,24 @@ public final class Decoder {
                     pick(relativeTolerance, this.relativeTolerance, override),
                     pick(minimumLeadout, this.minimumLeadout, override),
                     override, ignoreLeadingGarbage);
+            copy.firstMatch = firstMatch;
+            copy.quantizer = quantizer;
+            return copy;
+        }
 
+        /**
+         * Returns a copy, using the argument for quantizing the durations of the signal to be decoded.
+         */
+        DecoderParameters withQuantizer(DurationTable.Quantizer newQuantizer) {
+            DecoderParameters copy = adjust(false, null, null, null, null);
+            copy.quantizer = newQuantizer;
             return copy;
         }
 
+        DurationTable.Quantizer getQuantizer() {
+            return quantizer;
+        }
+
         private Double pick(Double standard, Double user, boolean override) {
             return ((override && user != null) || standard == null) ? user : standard;
         }
@@ -473,6 +633,22 @@ public final class Decoder {
             this.ignoreLeadingGarbage = ignoreLeadingGarbage;
         }
 
+        /**
+         * @return the firstMatch
+         */
+        public boolean isFirstMatch() {
+            return firstMatch;
+        }
+
+        /**
+         * If true, decodeIrSignal delivers only the first decode, stopping as soon as it is determined.
+         * Decoding of an IrSequence delivers only the first alternative at every position, but tries all protocols.
+         * @param firstMatch the firstMatch to set
+         */
+        public void setFirstMatch(boolean firstMatch) {
+            this.firstMatch = firstMatch;
+        }
+
         private boolean isIgnoreLeadingGarbage() {
             return ignoreLeadingGarbage;
         }
@@ -521,7 +697,7 @@ public final class Decoder {
          * @param parsedProtocols
          * @return
          */
-        private boolean toBeRemoved(T removeCandidate, Map<String, NamedProtocol> parsedProtocols) {
+        boolean toBeRemoved(T removeCandidate, Map<String, NamedProtocol> parsedProtocols) {
             for (T remover : map.values()) {
                 if (!remover.equals(removeCandidate))
                     if (toBeRemoved(removeCandidate, remover, parsedProtocols, 0))
@@ -680,6 +856,18 @@ public final class Decoder {
             return toString(10, ", ");
         }
 
+        /**
+         * Removes all alternatives but the first one, also in the rest of that.
+         */
+        private void keepFirst() {
+            TrunkDecodeTree first = first();
+            if (first == null)
+                return;
+            map.clear();
+            add(first);
+            first.getRest().keepFirst();
+        }
+
         private void removeIncompletes() {
             DecodeTree old = new DecodeTree(this);
             for (TrunkDecodeTree decode : old) {
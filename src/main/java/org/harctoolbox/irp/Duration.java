@@ -24,7 +24,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.logging.Logger;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.harctoolbox.ircore.InvalidArgumentException;
@@ -41,7 +40,7 @@ import org.w3c.dom.Element;
 
 public abstract class Duration extends IrpObject implements IrStreamItem, Floatable, Evaluatable {
 
-    private static final Logger logger = Logger.getLogger(Duration.class.getName());
+    //private static final Logger logger = Logger.getLogger(Duration.class.getName());
     private static final double DUMMYTIMEUNIT = 999;
 
     public static Duration newDuration(String str) {
@@ -49,11 +48,10 @@ public abstract class Duration extends IrpObject implements IrStreamItem, Floata
     }
 
     public static Duration newDuration(ParserDriver parserDriver) {
-        IrpParser parser = parserDriver.getParser();
         try {
-            return newDuration(parser.duration());
+            return newDuration(parserDriver.parse(IrpParser::duration));
         } catch (ParseCancellationException ex) {
-            return newDuration(parser.extent());
+            return newDuration(parserDriver.parse(IrpParser::extent));
         }
     }
 
@@ -83,6 +81,16 @@ public abstract class Duration extends IrpObject implements IrStreamItem, Floata
     protected String unit = null;
     //protected ParserRuleContext parseTree = null;
 
+    /**
+     * Position of this duration in a DurationTable, if constant; computed when first needed.
+     */
+    private TableEntry tableEntry = null;
+
+    /**
+     * Interval of accepted durations, if constant, for the last used GeneralSpec and tolerances.
+     */
+    private Interval interval = null;
+
     protected Duration(double d, String unit) {
         super(null);
         nameOrNumber = new NameOrNumber(d);
@@ -221,19 +229,85 @@ public abstract class Duration extends IrpObject implements IrStreamItem, Floata
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> bitSpecStack, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnter(this));
+        recognizeData.traceEnter(this);
         if (!recognizeData.check(isOn()))
             throw new SignalRecognitionException("Either end of sequence, or found flash when gap expected, or vice versa");
 
         double actual = recognizeData.get();
-        double wanted;
-        try {
-            wanted = toFloat(recognizeData.getGeneralSpec(), recognizeData.getNameEngine());
-        } catch (IrpInvalidArgumentException | NameUnassignedException ex) {
-            throw new SignalRecognitionException(ex);
+        DurationTable.Quantization quantization = recognizeData.getQuantization();
+        TableEntry entry = quantization != null && recognizeData.getHasConsumed() == 0.0
+                ? tableEntry(quantization.getTable(), recognizeData.getGeneralSpec()) : null;
+        if (entry != null) {
+            boolean equals = quantization.matches(recognizeData.getPosition(), entry.index);
+            recognize(recognizeData, actual, entry.wanted, equals, isLast);
+        } else {
+            Interval ival = actual >= 0 ? interval(recognizeData.getGeneralSpec(), recognizeData.getAbsoluteTolerance(), recognizeData.getRelativeTolerance()) : null;
+            if (ival != null)
+                recognize(recognizeData, actual, ival.wanted, ival.contains(actual), isLast);
+            else {
+                double wanted;
+                try {
+                    wanted = toFloat(recognizeData.getGeneralSpec(), recognizeData.getNameEngine());
+                } catch (IrpInvalidArgumentException | NameUnassignedException ex) {
+                    throw new SignalRecognitionException(ex);
+                }
+                recognize(recognizeData, actual, wanted, isLast);
+            }
+        }
+        recognizeData.traceExit(this);
+    }
+
+    /**
+     * Returns the index of this Duration in the table, or -1 if not constant, or not present.
+     */
+    int tableIndex(DurationTable table, GeneralSpec generalSpec) {
+        TableEntry entry = tableEntry(table, generalSpec);
+        return entry != null ? entry.index : -1;
+    }
+
+    /**
+     * Returns the entry of this Duration in the table, or null if not constant, or not present.
+     */
+    private TableEntry tableEntry(DurationTable table, GeneralSpec generalSpec) {
+        TableEntry entry = tableEntry;
+        if (entry != null && entry.table == table && entry.generalSpec == generalSpec)
+            return entry.index >= 0 ? entry : null;
+
+        int index = -1;
+        double wanted = 0.0;
+        if (nameOrNumber != null && nameOrNumber.isNumber()) {
+            try {
+                wanted = toFloat(generalSpec, null);
+                index = table.indexOf(wanted);
+            } catch (IrpInvalidArgumentException | NameUnassignedException ex) {
+            }
+        }
+        entry = new TableEntry(table, generalSpec, index, wanted);
+        tableEntry = entry;
+        return index >= 0 ? entry : null;
+    }
+
+    /**
+     * Returns the interval of non-negative durations that are approximately equal to this Duration,
+     * or null if it is not constant.
+     */
+    Interval interval(GeneralSpec generalSpec, double absoluteTolerance, double relativeTolerance) {
+        Interval ival = interval;
+        if (ival != null && ival.isFor(generalSpec, absoluteTolerance, relativeTolerance))
+            return ival.valid ? ival : null;
+
+        boolean valid = false;
+        double wanted = 0.0;
+        if (nameOrNumber != null && nameOrNumber.isNumber()) {
+            try {
+                wanted = toFloat(generalSpec, null);
+                valid = wanted >= 1.0;
+            } catch (IrpInvalidArgumentException | NameUnassignedException ex) {
+            }
         }
-        recognize(recognizeData, actual, wanted, isLast);
-        logger.log(recognizeData.logRecordExit(this));
+        ival = new Interval(generalSpec, absoluteTolerance, relativeTolerance, wanted, valid);
+        interval = ival;
+        return valid ? ival : null;
     }
 
     @Override
@@ -276,6 +350,10 @@ public abstract class Duration extends IrpObject implements IrStreamItem, Floata
 
     protected void recognize(RecognizeData recognizeData, double actual, double wanted, boolean isLast) throws SignalRecognitionException {
         boolean equals = IrCoreUtils.approximatelyEquals(actual, wanted, recognizeData.getAbsoluteTolerance(), recognizeData.getRelativeTolerance());
+        recognize(recognizeData, actual, wanted, equals, isLast);
+    }
+
+    private void recognize(RecognizeData recognizeData, double actual, double wanted, boolean equals, boolean isLast) throws SignalRecognitionException {
         if (equals)
             recognizeData.consume();
         else if (actual > wanted && recognizeData.allowChopping())
@@ -373,4 +451,78 @@ public abstract class Duration extends IrpObject implements IrStreamItem, Floata
         result.add(microSeconds(generalSpec, nameEngine));
         return result;
     }
+
+    /**
+     * The durations x &ge; 0 for which {@link IrCoreUtils#approximatelyEquals(double, double, double, double)}
+     * with wanted holds, as the interval [low, high].
+     * The bounds are computed from the tolerances, and then adjusted to the last double for which approximatelyEquals holds.
+     */
+    static final class Interval {
+        private final GeneralSpec generalSpec;
+        private final double absoluteTolerance;
+        private final double relativeTolerance;
+        private final double wanted;
+        private final boolean valid;
+        private final double low;
+        private final double high;
+
+        private Interval(GeneralSpec generalSpec, double absoluteTolerance, double relativeTolerance, double wanted, boolean valid) {
+            this.generalSpec = generalSpec;
+            this.absoluteTolerance = absoluteTolerance;
+            this.relativeTolerance = relativeTolerance;
+            this.wanted = wanted;
+            this.valid = valid;
+            if (!valid) {
+                low = 0.0;
+                high = -1.0;
+                return;
+            }
+            double lo = Math.max(Math.min(wanted - absoluteTolerance, wanted * (1 - relativeTolerance)), 0.0);
+            if (lo > 0.0) {
+                while (lo > 0.0 && matches(Math.nextDown(lo)))
+                    lo = Math.nextDown(lo);
+                while (!matches(lo))
+                    lo = Math.nextUp(lo);
+            }
+            double hi = relativeTolerance < 1.0 ? Math.max(wanted + absoluteTolerance, wanted / (1 - relativeTolerance)) : Double.POSITIVE_INFINITY;
+            if (hi < Double.POSITIVE_INFINITY) {
+                while (matches(Math.nextUp(hi)))
+                    hi = Math.nextUp(hi);
+                while (!matches(hi))
+                    hi = Math.nextDown(hi);
+            }
+            low = lo;
+            high = hi;
+        }
+
+        private boolean matches(double actual) {
+            return IrCoreUtils.approximatelyEquals(actual, wanted, absoluteTolerance, relativeTolerance);
+        }
+
+        private boolean isFor(GeneralSpec gs, double absTolerance, double relTolerance) {
+            return gs == generalSpec && absTolerance == absoluteTolerance && relTolerance == relativeTolerance;
+        }
+
+        boolean contains(double actual) {
+            return low <= actual && actual <= high;
+        }
+
+        double getWanted() {
+            return wanted;
+        }
+    }
+
+    private static final class TableEntry {
+        private final DurationTable table;
+        private final GeneralSpec generalSpec;
+        private final int index;
+        private final double wanted;
+
+        TableEntry(DurationTable table, GeneralSpec generalSpec, int index, double wanted) {
+            this.table = table;
+            this.generalSpec = generalSpec;
+            this.index = index;
+            this.wanted = wanted;
+        }
+    }
 }
@@ -0,0 +1,160 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.irp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import org.harctoolbox.ircore.IrCoreUtils;
+import org.harctoolbox.ircore.IrSequence;
+
+/**
+ * The constant durations of a collection of protocols, sorted and without duplicates.
+ *
+ * <p>A {@link Quantization} of an IrSequence determines, once for all protocols,
+ * which of these durations every duration of the sequence matches within the tolerances.
+ * Since, for a given actual duration, the matching durations form an interval of the table,
+ * it is stored as a pair of indices per duration. A constant {@link Duration} then needs only
+ * to compare its table index against these, instead of evaluating itself and doing floating point tolerance computations.
+ */
+final class DurationTable {
+
+    private final double[] durations;
+
+    DurationTable(Collection<? extends Protocol> protocols) {
+        TreeSet<Double> set = new TreeSet<>();
+        protocols.forEach((protocol) -> {
+            protocol.allDurationsInMicros().stream().filter((d) -> d != null && d > 0).forEach(set::add);
+        });
+        durations = new double[set.size()];
+        int i = 0;
+        for (double d : set)
+            durations[i++] = d;
+    }
+
+    int size() {
+        return durations.length;
+    }
+
+    /**
+     * Returns the index of the argument in the table.
+     * @param duration
+     * @return index, or -1 if not present.
+     */
+    int indexOf(double duration) {
+        int index = Arrays.binarySearch(durations, duration);
+        return index >= 0 ? index : -1;
+    }
+
+    double get(int index) {
+        return durations[index];
+    }
+
+    Quantization quantize(IrSequence irSequence, double absoluteTolerance, double relativeTolerance) {
+        return new Quantization(irSequence, absoluteTolerance, relativeTolerance);
+    }
+
+    /**
+     * Returns a new Quantizer, keeping the Quantizations of the sequences of one signal.
+     * @return
+     */
+    Quantizer newQuantizer() {
+        return new Quantizer();
+    }
+
+    /**
+     * For each duration of an IrSequence, the (possibly empty) interval of matching table entries.
+     */
+    final class Quantization {
+
+        private final IrSequence irSequence;
+        private final double absoluteTolerance;
+        private final double relativeTolerance;
+        private final int[] low;
+        private final int[] high;
+
+        private Quantization(IrSequence irSequence, double absoluteTolerance, double relativeTolerance) {
+            this.irSequence = irSequence;
+            this.absoluteTolerance = absoluteTolerance;
+            this.relativeTolerance = relativeTolerance;
+            int length = irSequence.getLength();
+            low = new int[length];
+            high = new int[length];
+            for (int i = 0; i < length; i++) {
+                double actual = Math.abs(irSequence.get(i));
+                int insertionPoint = Arrays.binarySearch(durations, actual);
+                int start = insertionPoint >= 0 ? insertionPoint : -insertionPoint - 1;
+                int lo = start;
+                while (lo > 0 && matches(actual, lo - 1))
+                    lo--;
+                int hi = start - 1;
+                while (hi + 1 < durations.length && matches(actual, hi + 1))
+                    hi++;
+                // if nothing matched, hi == lo - 1, i.e. the interval is empty
+                low[i] = lo;
+                high[i] = hi;
+            }
+        }
+
+        private boolean matches(double actual, int index) {
+            return IrCoreUtils.approximatelyEquals(actual, durations[index], absoluteTolerance, relativeTolerance);
+        }
+
+        DurationTable getTable() {
+            return DurationTable.this;
+        }
+
+        boolean isFor(IrSequence sequence, double absTolerance, double relTolerance) {
+            return sequence == irSequence && absTolerance == absoluteTolerance && relTolerance == relativeTolerance;
+        }
+
+        /**
+         * Tells if the duration at position matches the duration with index in the table.
+         * @param position
+         * @param index
+         * @return
+         */
+        boolean matches(int position, int index) {
+            return low[position] <= index && index <= high[position];
+        }
+    }
+
+    /**
+     * Creates, and remembers, Quantizations of the IrSequences of one signal.
+     * Since several protocols may have the same tolerances, a Quantization is typically used many times.
+     */
+    final class Quantizer {
+
+        private final List<Quantization> quantizations = new ArrayList<>(4);
+
+        private Quantizer() {
+        }
+
+        synchronized Quantization get(IrSequence irSequence, double absoluteTolerance, double relativeTolerance) {
+            for (Quantization quantization : quantizations)
+                if (quantization.isFor(irSequence, absoluteTolerance, relativeTolerance))
+                    return quantization;
+
+            Quantization quantization = quantize(irSequence, absoluteTolerance, relativeTolerance);
+            quantizations.add(quantization);
+            return quantization;
+        }
+    }
+}
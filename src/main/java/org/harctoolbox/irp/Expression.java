@@ -46,7 +46,7 @@ public abstract class Expression extends PrimaryItem {
      * @throws org.harctoolbox.irp.IrpParseException
      */
     public static Expression newExpressionEOF(String str) throws IrpParseException {
-        ParserDriver parserDriver = new ParserDriver(str);
+        ParserDriver parserDriver = ParserDriver.newParserDriver(ParserDriver.Rule.EXPRESSION_EOF, str);
         Expression expression = newExpressionEOF(parserDriver);
         String matched = expression.getParseTree().getText();
         if (matched.length() < str.replaceAll("\\s+", "").length())
@@ -60,18 +60,18 @@ public abstract class Expression extends PrimaryItem {
             long number = Long.parseLong(str);
             return new NumberExpression(number);
         } catch (NumberFormatException ex) {
-            return newExpression(new ParserDriver(str));
+            return newExpression(ParserDriver.newExpressionParserDriver(str));
         }
     }
 
     public static Expression newExpression(ParserDriver parserDriver) {
-        Expression expression = newExpression(parserDriver.getParser().expression());
+        Expression expression = newExpression(parserDriver.expression());
         expression.parserDriver = parserDriver;
         return expression;
     }
 
     public static Expression newExpressionEOF(ParserDriver parserDriver) {
-        Expression expression = newExpression(parserDriver.getParser().expressionEOF().expression());
+        Expression expression = newExpression(parserDriver.expressionEOF().expression());
         expression.parserDriver = parserDriver;
         return expression;
     }
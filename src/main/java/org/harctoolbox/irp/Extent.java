@@ -20,7 +20,6 @@ package org.harctoolbox.irp;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
-import java.util.logging.Logger;
 
 /**
  * This class implements Extents as per Chapter 4.
@@ -28,14 +27,14 @@ import java.util.logging.Logger;
  */
 public final class Extent extends Duration {
 
-    private static final Logger logger = Logger.getLogger(Extent.class.getName());
+    //private static final Logger logger = Logger.getLogger(Extent.class.getName());
 
     public Extent(String str) {
         this(new ParserDriver(str));
     }
 
     public Extent(ParserDriver parserDriver) {
-        this(parserDriver.getParser().extent());
+        this(parserDriver.parse(IrpParser::extent));
     }
 
     public Extent(IrpParser.ExtentContext ctx) {
@@ -87,7 +86,7 @@ public final class Extent extends Duration {
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> bitSpecStack, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnter(this));
+        recognizeData.traceEnter(this);
         double elapsed = recognizeData.elapsed();
         double physical = recognizeData.get();
         double theoretical;
@@ -98,7 +97,7 @@ public final class Extent extends Duration {
         }
         recognizeData.markExtentStart();
         recognize(recognizeData, physical, theoretical, isLast);
-        logger.log(recognizeData.logRecordExit(this));
+        recognizeData.traceExit(this);
     }
 
     @Override
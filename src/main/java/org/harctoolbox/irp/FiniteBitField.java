@@ -42,13 +42,14 @@ public final class FiniteBitField extends BitField implements IrStreamItem {
 
     private PrimaryItem width;
     private boolean reverse;
+    private Inverse inverse; // null if the symbolic solver has to be used
 
     public FiniteBitField(String str) {
         this(new ParserDriver(str));
     }
 
     private FiniteBitField(ParserDriver parserDriver) {
-        this((IrpParser.Finite_bitfieldContext) parserDriver.getParser().bitfield());
+        this((IrpParser.Finite_bitfieldContext) parserDriver.parse(IrpParser::bitfield));
     }
 
     public FiniteBitField(String name, long width) throws InvalidNameException {
@@ -70,6 +71,7 @@ public final class FiniteBitField extends BitField implements IrStreamItem {
         this.chop = chop;
         this.complement = complement;
         this.reverse = reverse;
+        this.inverse = Inverse.newInverse(this);
     }
 
     public FiniteBitField(IrpParser.Finite_bitfieldContext ctx) {
@@ -83,6 +85,7 @@ public final class FiniteBitField extends BitField implements IrStreamItem {
         width = PrimaryItem.newPrimaryItem(ctx.primary_item(1));
         chop = ctx.primary_item().size() > 2 ? PrimaryItem.newPrimaryItem(ctx.primary_item(2)) : PrimaryItem.newPrimaryItem(0);
         reverse = ! (ctx.getChild(index+2) instanceof IrpParser.Primary_itemContext);
+        inverse = Inverse.newInverse(this);
     }
 
     @Override
@@ -245,27 +248,37 @@ public final class FiniteBitField extends BitField implements IrStreamItem {
 
     @Override
     public void decode(RecognizeData recognizeData, List<BitSpec> bitSpecStack, boolean isLast) throws SignalRecognitionException {
-        logger.log(recognizeData.logRecordEnter(this));
+        recognizeData.traceEnter(this);
         try {
             long payload = collectData(recognizeData, bitSpecStack);
 
             // Can the data be computed with already present data?
             boolean success = isChecksum(recognizeData, payload);
             if (success) {
-                logger.log(recognizeData.logRecordExit(this));
+                recognizeData.traceExit(this);
                 return;
             }
 
             // no, it is a parameter assignment,
             // We now have the "equation" data == payload, we are turning that into an assignment
-            //PrimaryItem expression = data;
-            //Long rhs = payload;
+            if (inverse != null) {
+                BitwiseParameter value = inverse.apply(payload);
+                recognizeData.add(inverse.name, value);
+                Expression expression = recognizeData.getNameEngine().getPossiblyNull(inverse.name);
+                if (expression != null) {
+                    Equation equation = new Equation(expression, value, recognizeData);
+                    if (equation.solve())
+                        recognizeData.add(equation.getName(), equation.getValue());
+                }
+                recognizeData.traceExit(this);
+                return;
+            }
 
             Equation equation = new Equation(this, payload, width.toLong(recognizeData.getNameEngine()), recognizeData);
-            String origEquation = equation.toString();
             boolean solved = equation.solve();
             if (!solved) {
-                throw new SignalRecognitionException("Could not solve equation: " + origEquation);
+                throw new SignalRecognitionException("Could not solve equation: " + this.toString() + "="
+                        + new BitwiseParameter(payload, IrCoreUtils.ones(width.toLong(recognizeData.getNameEngine()))).toString());
             }
             recognizeData.add(equation.getName(), equation.getValue());
 
@@ -445,4 +458,48 @@ public final class FiniteBitField extends BitField implements IrStreamItem {
     private long assignmentNeededBitmask(RecognizeData recognizeData) {
         return getWidth(recognizeData).longValueExact() << getChop(recognizeData).longValueExact();
     }
+
+    /**
+     * Precomputed solution of the equation {@code name:width:chop == payload} for constant width and chop,
+     * possibly with complement and reverse, replacing the symbolic solver in the decoding of such bitfields.
+     */
+    private static final class Inverse {
+
+        static Inverse newInverse(FiniteBitField bitField) {
+            if (!(bitField.data instanceof Name && bitField.width instanceof Number && bitField.chop instanceof Number))
+                return null;
+            try {
+                long wid = bitField.width.toLong(NameEngine.EMPTY);
+                long ch = bitField.chop.toLong(NameEngine.EMPTY);
+                if (wid < 0 || wid > Long.SIZE || ch < 0 || ch >= Long.SIZE)
+                    return null;
+                return new Inverse(bitField.data.toString(), (int) wid, (int) ch, bitField.complement, bitField.reverse);
+            } catch (NameUnassignedException | ArithmeticException ex) {
+                return null;
+            }
+        }
+
+        private final String name;
+        private final int width;
+        private final int chop;
+        private final boolean complement;
+        private final boolean reverse;
+        private final long bitmask;
+
+        private Inverse(String name, int width, int chop, boolean complement, boolean reverse) {
+            this.name = name;
+            this.width = width;
+            this.chop = chop;
+            this.complement = complement;
+            this.reverse = reverse;
+            this.bitmask = IrCoreUtils.ones(width) << chop;
+        }
+
+        BitwiseParameter apply(long payload) {
+            long value = complement ? ~payload : payload;
+            if (reverse)
+                value = IrCoreUtils.reverse(value, width);
+            return new BitwiseParameter(value << chop, bitmask);
+        }
+    }
 }
@@ -30,7 +30,7 @@ public final class Flash extends Duration {
     }
 
     public Flash(ParserDriver parserDriver) {
-        this(parserDriver.getParser().flash());
+        this(parserDriver.parse(IrpParser::flash));
     }
 
     public Flash(IrpParser.FlashContext ctx) {
@@ -51,7 +51,7 @@ public final class FloatNumber extends IrpObject implements Floatable {
     }
 
     public FloatNumber(ParserDriver parserDriver) {
-        this(parserDriver.getParser().float_number());
+        this(parserDriver.parse(IrpParser::float_number));
     }
 
     @Override
@@ -29,7 +29,7 @@ public final class Gap extends Duration {
     }
 
     private Gap(ParserDriver parserDriver) {
-        this(parserDriver.getParser().gap());
+        this(parserDriver.parse(IrpParser::gap));
     }
 
     Gap(IrpParser.GapContext ctx) {
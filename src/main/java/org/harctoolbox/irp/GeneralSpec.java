@@ -93,7 +93,7 @@ public final class GeneralSpec extends IrpObject implements AggregateLister {
     }
 
     private GeneralSpec(ParserDriver parserDriver) throws IrpInvalidArgumentException {
-        this(parserDriver.getParser().generalspec());
+        this(parserDriver.parse(IrpParser::generalspec));
     }
 
     public GeneralSpec(IrpParser.ProtocolContext ctx) throws IrpInvalidArgumentException {
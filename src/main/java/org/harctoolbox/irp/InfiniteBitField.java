@@ -32,7 +32,7 @@ public final class InfiniteBitField extends BitField {
     }
 
     public InfiniteBitField(ParserDriver parserDriver) {
-        this((IrpParser.Infinite_bitfieldContext) parserDriver.getParser().bitfield());
+        this((IrpParser.Infinite_bitfieldContext) parserDriver.parse(IrpParser::bitfield));
     }
 
     public InfiniteBitField(IrpParser.Infinite_bitfieldContext ctx) {
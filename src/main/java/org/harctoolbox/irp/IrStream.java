@@ -45,7 +45,7 @@ public final class IrStream extends IrpObject implements IrStreamItem,AggregateL
     }
 
     public IrStream(ParserDriver parserDriver) {
-        this(parserDriver.getParser().irstream());
+        this(parserDriver.parse(IrpParser::irstream));
     }
 
     public IrStream(IrpParser.IrstreamContext ctx) {
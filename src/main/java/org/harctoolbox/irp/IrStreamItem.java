@@ -35,7 +35,7 @@ public interface IrStreamItem extends XmlExport {
     }
 
     public static IrStreamItem newIrStreamItem(ParserDriver parserDriver) {
-        return newIrStreamItem(parserDriver.getParser().irstream_item());
+        return newIrStreamItem(parserDriver.parse(IrpParser::irstream_item));
     }
 
     public static IrStreamItem newIrStreamItem(IrpParser.Irstream_itemContext ctx) {
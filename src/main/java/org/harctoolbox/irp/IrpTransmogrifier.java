@@ -29,6 +29,7 @@ import org.harctoolbox.cmdline.CommandAnalyze;
 import org.harctoolbox.cmdline.CommandBitField;
 import org.harctoolbox.cmdline.CommandCode;
 import org.harctoolbox.cmdline.CommandCommonOptions;
+import org.harctoolbox.cmdline.CommandCorpus;
 import org.harctoolbox.cmdline.CommandDecode;
 import org.harctoolbox.cmdline.CommandDemodulate;
 import org.harctoolbox.cmdline.CommandExpression;
@@ -83,6 +84,7 @@ public final class IrpTransmogrifier extends CmdLineProgram {
     private final CommandBitField commandBitField = new CommandBitField();
     private final CommandExpression commandExpression = new CommandExpression();
     private final CommandLirc commandLirc = new CommandLirc();
+    private final CommandCorpus commandCorpus = new CommandCorpus();
 
     @SuppressWarnings("UseOfSystemOutOrSystemErr")
     public IrpTransmogrifier() {
@@ -100,7 +102,8 @@ public final class IrpTransmogrifier extends CmdLineProgram {
                 commandCode,
                 commandBitField,
                 commandExpression,
-                commandLirc);
+                commandLirc,
+                commandCorpus);
         commandLineArgs = (CommandCommonOptions) commandBasicOptions;
     }
 
@@ -125,6 +128,9 @@ public final class IrpTransmogrifier extends CmdLineProgram {
                     irpDatabase = commandLineArgs.setupDatabase();
                     commandCode.code(out, commandLineArgs, irpDatabase, originalArguments);
                     break;
+                case "corpus":
+                    commandCorpus.corpus(out, commandLineArgs);
+                    break;
                 case "decode":
                     irpDatabase = commandLineArgs.setupDatabase();
                     commandDecode.decode(out, commandLineArgs, irpDatabase);
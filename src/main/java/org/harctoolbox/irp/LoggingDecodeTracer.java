@@ -0,0 +1,89 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+
+package org.harctoolbox.irp;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * DecodeTracer writing to the logger of the class declaring the decode method of the item
+ * (e.g. Duration for Flash and Gap), at the level given by {@link RecognizeData#getLogLevel()}.
+ * Records are only built if they are going to be logged.
+ */
+public final class LoggingDecodeTracer implements DecodeTracer {
+
+    private static final ClassValue<Logger> loggers = new ClassValue<Logger>() {
+        @Override
+        protected Logger computeValue(Class<?> clazz) {
+            Class<?> declaringClass;
+            try {
+                declaringClass = clazz.getMethod("decode", RecognizeData.class, List.class, boolean.class).getDeclaringClass();
+            } catch (NoSuchMethodException ex) {
+                declaringClass = clazz;
+            }
+            return Logger.getLogger(declaringClass.getName());
+        }
+    };
+
+    @Override
+    public void enter(IrStreamItem item, RecognizeData recognizeData) {
+        Logger logger = loggers.get(item.getClass());
+        Level level = recognizeData.getLogLevel();
+        if (!logger.isLoggable(level))
+            return;
+
+        LogRecord logRecord;
+        if (item instanceof BitspecIrstream) {
+            logRecord = new LogRecord(level, "{0} {1}Level {2}: \"{3}\", IrSequence: {4}");
+            logRecord.setParameters(new Object[]{recognizeData.getPass().toString(), ">", recognizeData.getLevel(), item.toString(), recognizeData.getIrSequence()});
+        } else {
+            logRecord = new LogRecord(level, "{0}Level {1}: \"{2}\"");
+            logRecord.setParameters(new Object[]{">", recognizeData.getLevel(), item.toString()});
+        }
+        log(logger, logRecord);
+    }
+
+    @Override
+    public void exit(IrStreamItem item, RecognizeData recognizeData) {
+        Logger logger = loggers.get(item.getClass());
+        Level level = recognizeData.getLogLevel();
+        if (!logger.isLoggable(level))
+            return;
+
+        LogRecord logRecord;
+        if (item instanceof Numerical) {
+            BitwiseParameter value = ((Numerical) item).toBitwiseParameter(recognizeData);
+            logRecord = new LogRecord(level, "{0}Level {1}: \"{2}\", result: {3}");
+            logRecord.setParameters(new Object[]{"<", recognizeData.getLevel(), item.toString(), value});
+        } else {
+            logRecord = new LogRecord(level, "{0}Level {1}: \"{2}\"");
+            logRecord.setParameters(new Object[]{"<", recognizeData.getLevel(), item.toString()});
+        }
+        log(logger, logRecord);
+    }
+
+    private void log(Logger logger, LogRecord logRecord) {
+        logRecord.setLoggerName(logger.getName());
+        logRecord.setSourceClassName(logger.getName());
+        logRecord.setSourceMethodName("decode");
+        logger.log(logRecord);
+    }
+}
@@ -67,6 +67,11 @@ public final class Name extends PrimaryItem implements Floatable {
 
     private final String name;
 
+    /**
+     * Slot of the name in the table it was last looked up in; only positive results are cached.
+     */
+    private volatile Resolution resolution = null;
+
     public Name(IrpParser.NameContext ctx) {
         super(ctx);
         name = ctx.getText();
@@ -78,6 +83,21 @@ public final class Name extends PrimaryItem implements Floatable {
         this.name = name;
     }
 
+    /**
+     * @param slots
+     * @return the slot of this name in the table, or -1 if not present.
+     */
+    int slot(Slots slots) {
+        Resolution cached = resolution;
+        if (cached != null && cached.slots == slots)
+            return cached.slot;
+
+        int slot = slots.indexOf(name);
+        if (slot >= 0)
+            resolution = new Resolution(slots, slot);
+        return slot;
+    }
+
     @Override
     public PrimaryItem substituteConstantVariables(Map<String, Long> constantVariables) {
         return constantVariables.containsKey(name) ? new Number(constantVariables.get(name)) : this;
@@ -170,4 +190,15 @@ public final class Name extends PrimaryItem implements Floatable {
     public BitwiseParameter toBitwiseParameter(RecognizeData recognizeData) {
         return recognizeData.toBitwiseParameter(toString());
     }
+
+    private static final class Resolution {
+
+        private final Slots slots;
+        private final int slot;
+
+        Resolution(Slots slots, int slot) {
+            this.slots = slots;
+            this.slot = slot;
+        }
+    }
 }
@@ -17,13 +17,16 @@ this program. If not, see http://www.gnu.org/licenses/.
 
 package org.harctoolbox.irp;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.logging.Level;
@@ -35,6 +38,10 @@ import org.w3c.dom.Element;
 /**
  * Implementation of Definitions in Chapter 10 and Assignments in Chapter 11; these are not independent objects.
  *
+ * <p>The names are mapped to dense slots by a {@link Slots} table, shared between copies, for example the copies
+ * of the definitions of a protocol made during its recognition. The expressions are stored in an array indexed by slot,
+ * so that copying is just an array copy, and looking up a {@link Name} already resolved against the table is an index load.
+ * Iteration is in the order of the slots.
  */
 
 public final class NameEngine extends IrpObject implements AggregateLister, Iterable<Map.Entry<String, Expression>> {
@@ -57,8 +64,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     public static NameEngine parse(String[] definitions) {
         NameEngine nameEngine = new NameEngine();
         for (String definition : definitions) {
-            ParserDriver parserDriver = new ParserDriver(definition);
-            nameEngine.parseDefinition(parserDriver.getParser().definition());
+            nameEngine.parseDefinition(ParserDriver.parseCached(ParserDriver.Rule.DEFINITION, definition));
         }
         return nameEngine;
     }
@@ -74,18 +80,16 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
         return element;
     }
 
-    private static HashMap<String, Expression> mapConvert(Map<String, Long> numericalParameters) {
-        HashMap<String, Expression> result = new HashMap<>(numericalParameters.size());
-        numericalParameters.entrySet().forEach((kvp) -> {
-            result.put(kvp.getKey(), new NumberExpression(kvp.getValue()));
-        });
-        return result;
-    }
-
-    private Map<String, Expression> map;
+    private Slots slots;
+    private boolean ownsSlots;
+    private Expression[] expressions; // indexed by slot, null if not defined
+    private int size;
 
     public NameEngine(Map<String, Long> numericalParameters) {
-        this(null, mapConvert(numericalParameters));
+        this(numericalParameters.size());
+        numericalParameters.entrySet().forEach((kvp) -> {
+            put(kvp.getKey(), new NumberExpression(kvp.getValue()));
+        });
     }
 
     public NameEngine() {
@@ -93,39 +97,85 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     }
 
     public NameEngine(int initialCapacity) {
-        this(null, new HashMap<String, Expression>(initialCapacity));
+        this(null, new Slots(initialCapacity), true);
     }
 
-    private NameEngine(IrpParser.DefinitionsContext ctx, Map<String, Expression> map) {
+    private NameEngine(IrpParser.DefinitionsContext ctx, Slots slots, boolean ownsSlots) {
         super(ctx);
-        this.map = map;
-    }
-
-    private NameEngine(IrpParser.DefinitionsContext ctx, int initialCapacity) {
-        this(ctx, new LinkedHashMap<>(initialCapacity));
+        this.slots = slots;
+        this.ownsSlots = ownsSlots;
+        expressions = new Expression[Math.max(slots.size(), 4)];
+        size = 0;
     }
 
     private NameEngine(IrpParser.DefinitionsContext ctx) {
-        this(ctx, 4);
+        this(ctx, new Slots(4), true);
         parseDefinitions(ctx.definitions_list());
     }
 
     public NameEngine(String str) throws InvalidNameException {
-        this(new ParserDriver(str));
+        this(ParserDriver.parseCached(ParserDriver.Rule.DEFINITIONS, str));
+    }
+
+    public NameEngine(NameEngine orig) {
+        super(null);
+        // Both now share the table, so neither of them may append to it.
+        orig.ownsSlots = false;
+        slots = orig.slots;
+        ownsSlots = false;
+        expressions = orig.expressions.clone();
+        size = orig.size;
     }
 
-    private NameEngine(ParserDriver parserDriver) throws InvalidNameException {
-        this(parserDriver.getParser().definitions());
+    /**
+     * Copies the argument into a NameEngine using the table given, which is shared, and not to be appended to.
+     * @param orig
+     * @param slots
+     */
+    NameEngine(NameEngine orig, Slots slots) {
+        this(null, slots, false);
+        add(orig);
     }
 
-    public NameEngine(NameEngine orig) {
-        this(null, new HashMap<String, Expression>(orig.map));
+    private int limit() {
+        return Math.min(slots.size(), expressions.length);
+    }
+
+    private Expression get(int slot) {
+        return slot >= 0 && slot < expressions.length ? expressions[slot] : null;
+    }
+
+    private void put(String name, Expression expression) {
+        int slot = slots.indexOf(name);
+        if (slot < 0) {
+            if (!ownsSlots) {
+                slots = slots.copy();
+                ownsSlots = true;
+            }
+            slot = slots.add(name);
+        }
+        if (slot >= expressions.length)
+            expressions = Arrays.copyOf(expressions, Math.max(2 * expressions.length, slots.size()));
+        if (expressions[slot] == null)
+            size++;
+        expressions[slot] = expression;
+    }
+
+    private void remove(String name) {
+        int slot = slots.indexOf(name);
+        if (get(slot) != null) {
+            expressions[slot] = null;
+            size--;
+        }
     }
 
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 59 * hash + Objects.hashCode(this.map);
+        int mapHash = 0;
+        for (Map.Entry<String, Expression> kvp : this)
+            mapHash += kvp.getKey().hashCode() ^ kvp.getValue().hashCode();
+        hash = 59 * hash + mapHash;
         return hash;
     }
 
@@ -138,11 +188,16 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
         if (getClass() != obj.getClass())
             return false;
         final NameEngine other = (NameEngine) obj;
-        return Objects.equals(this.map, other.map);
+        if (size != other.size)
+            return false;
+        for (Map.Entry<String, Expression> kvp : this)
+            if (!kvp.getValue().equals(other.getPossiblyNull(kvp.getKey())))
+                return false;
+        return true;
     }
 
     public int size() {
-        return map.size();
+        return size;
     }
 
     public boolean numericallyEquals(Object object) {
@@ -155,7 +210,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
         if (other.size() != this.size())
             return false;
 
-        for (Map.Entry<String, Expression> kvp : map.entrySet()) {
+        for (Map.Entry<String, Expression> kvp : this) {
             try {
                 String name = kvp.getKey();
                 long value = kvp.getValue().toLong(this);
@@ -177,7 +232,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
         if (other.size() != this.size())
             return false;
 
-        for (Map.Entry<String, Expression> kvp : map.entrySet()) {
+        for (Map.Entry<String, Expression> kvp : this) {
             try {
                 String name = kvp.getKey();
                 long value = kvp.getValue().toLong(this);
@@ -210,7 +265,31 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
 
     @Override
     public Iterator<Map.Entry<String, Expression>> iterator() {
-        return map.entrySet().iterator();
+        return new Iterator<Map.Entry<String, Expression>>() {
+            private final int limit = limit();
+            private int slot = advance(0);
+
+            private int advance(int start) {
+                int i = start;
+                while (i < limit && expressions[i] == null)
+                    i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < limit;
+            }
+
+            @Override
+            public Map.Entry<String, Expression> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Map.Entry<String, Expression> entry = new AbstractMap.SimpleImmutableEntry<>(slots.name(slot), expressions[slot]);
+                slot = advance(slot + 1);
+                return entry;
+            }
+        };
     }
 
     private void define(String name, IrpParser.ExpressionContext ctx) throws InvalidNameException {
@@ -219,7 +298,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
 
     public void define(String name, Expression expression) throws InvalidNameException {
         Name.checkName(name);
-        map.put(name, expression);
+        put(name, expression);
     }
 
     public void define(String name, java.lang.Number value) throws InvalidNameException {
@@ -232,8 +311,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
      * @param str String to be parsed, like "{C = F*4 + D + 3}".
      */
     public void parseDefinitions(String str) {
-        ParserDriver parserDriver = new ParserDriver(str);
-        parseDefinitions(parserDriver.getParser().definitions());
+        parseDefinitions(ParserDriver.parseCached(ParserDriver.Rule.DEFINITIONS, str));
     }
 
     public void parseDefinitions(IrpParser.DefinitionsContext ctx /* DEFINITIONS */) {
@@ -265,19 +343,21 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
      * @throws org.harctoolbox.irp.NameUnassignedException
      */
     public Expression get(String name) throws NameUnassignedException {
-        //Debug.debugNameEngine("NameEngine: " + name + (map.containsKey(name) ? (" = " + map.get(name).toStringTree()) : "-"));
-        Expression expression = map.get(name);
+        Expression expression = getPossiblyNull(name);
         if (expression == null)
             throw new NameUnassignedException(name);
         return expression;
     }
 
     public Expression get(Name name) throws NameUnassignedException {
-        return get(name.toString());
+        Expression expression = get(name.slot(slots));
+        if (expression == null)
+            throw new NameUnassignedException(name.toString());
+        return expression;
     }
 
     public Expression getPossiblyNull(String name) {
-        return map.get(name);
+        return get(slots.indexOf(name));
     }
 
     public long toLong(String name) throws NameUnassignedException {
@@ -286,11 +366,25 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     }
 
     public boolean containsKey(String name) {
-        return map.containsKey(name);
+        return getPossiblyNull(name) != null;
     }
 
     void add(NameEngine definitions) {
-        map.putAll(definitions.map);
+        if (definitions.slots == slots) {
+            int limit = definitions.limit();
+            if (limit > expressions.length)
+                expressions = Arrays.copyOf(expressions, Math.max(2 * expressions.length, limit));
+            for (int slot = 0; slot < limit; slot++) {
+                Expression expression = definitions.expressions[slot];
+                if (expression != null) {
+                    if (expressions[slot] == null)
+                        size++;
+                    expressions[slot] = expression;
+                }
+            }
+        } else
+            for (Map.Entry<String, Expression> kvp : definitions)
+                put(kvp.getKey(), kvp.getValue());
     }
 
     @Override
@@ -299,11 +393,11 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     }
 
     String toIrpString(int radix, String separator) {
-        if (map.isEmpty())
+        if (isEmpty())
             return "";
         StringJoiner stringJoiner = new StringJoiner("," + separator, "{", "}");
-        map.keySet().stream().sorted().forEach((key) -> {
-            stringJoiner.add(key + "=" + map.get(key).toIrpString(radix));
+        getNames().stream().sorted().forEach((key) -> {
+            stringJoiner.add(key + "=" + getPossiblyNull(key).toIrpString(radix));
         });
         return stringJoiner.toString();
     }
@@ -312,19 +406,26 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     @Override
     public Element toElement(Document document) {
         Element root = document.createElement("Definitions"); // do not use super!
-        map.entrySet().forEach((definition) -> {
+        forEach((definition) -> {
                 root.appendChild(mkElement(document, definition));
         });
         return root;
     }
 
+    /**
+     * @return The defined names, in the order of the slots. Unmodifiable.
+     */
     public Set<String> getNames() {
-        return map.keySet();
+        Set<String> names = new LinkedHashSet<>(2 * size);
+        forEach((kvp) -> {
+            names.add(kvp.getKey());
+        });
+        return Collections.unmodifiableSet(names);
     }
 
     public Map<String, Long> toMap() {
-        HashMap<String, Long> result = new HashMap<>(map.size());
-        map.entrySet().forEach((kvp) -> {
+        HashMap<String, Long> result = new HashMap<>(size);
+        forEach((kvp) -> {
             try {
                 result.put(kvp.getKey(), kvp.getValue().toLong(this));
             } catch (NameUnassignedException ex) {
@@ -335,24 +436,25 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     }
 
     public boolean isEmpty() {
-        return map.isEmpty();
+        return size == 0;
     }
 
     void addBarfByConflicts(NameEngine nameEngine) throws ParameterInconsistencyException {
-        for (Map.Entry<String, Expression> kvp : nameEngine.map.entrySet()) {
+        for (Map.Entry<String, Expression> kvp : nameEngine) {
             String name = kvp.getKey();
             Expression val = kvp.getValue();
-            if (map.containsKey(name)) {
+            Expression old = getPossiblyNull(name);
+            if (old != null) {
                 try {
-                    if (map.get(name).toLong(this) != val.toLong(nameEngine)) {
+                    if (old.toLong(this) != val.toLong(nameEngine)) {
                         logger.log(Level.FINER, "Name conflict {0}", name);
-                        throw new ParameterInconsistencyException(name, map.get(name).toLong(this), val.toLong(nameEngine));
+                        throw new ParameterInconsistencyException(name, old.toLong(this), val.toLong(nameEngine));
                     }
                 } catch (NameUnassignedException ex) {
                     throw new ThisCannotHappenException(ex);
                 }
             } else
-                map.put(name, val);
+                put(name, val);
         }
     }
 
@@ -365,22 +467,20 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
     public Map<String, Object> propertiesMap(GeneralSpec generalSpec, NameEngine nameEngine) {
         Map<String, Object> result = new HashMap<>(2);
         result.put("kind", this.getClass().getSimpleName());
-        List<Map<String, Object>> list = new ArrayList<>(map.size());
+        List<Map<String, Object>> list = new ArrayList<>(size);
         result.put("list", list);
-        map.entrySet().stream().map((kvp) -> {
+        for (Map.Entry<String, Expression> kvp : this) {
             Map<String, Object> m = new HashMap<>(2);
             m.put("name", kvp.getKey());
             m.put("expression", kvp.getValue().propertiesMap(true, generalSpec, nameEngine));
-            return m;
-        }).forEachOrdered((m) -> {
             list.add(m);
-        });
+        }
         return result;
     }
 
     Map<String, Long> getNumericLiterals() {
         HashMap<String, Long> result = new HashMap<>(this.size());
-        map.entrySet().forEach((kvp) -> {
+        forEach((kvp) -> {
             String name = kvp.getKey();
             Expression exp = kvp.getValue();
             long val;
@@ -395,7 +495,7 @@ public final class NameEngine extends IrpObject implements AggregateLister, Iter
 
     NameEngine remove(Iterable<String> names) {
         NameEngine result = new NameEngine(this);
-        names.forEach((key) -> result.map.remove(key));
+        names.forEach((key) -> result.remove(key));
         return result;
     }
 }
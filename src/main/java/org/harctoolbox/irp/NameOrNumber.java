@@ -34,7 +34,7 @@ public final class NameOrNumber extends IrpObject implements Floatable {
     }
 
     private NameOrNumber(ParserDriver parserDriver) {
-        this(parserDriver.getParser().name_or_number());
+        this(parserDriver.parse(IrpParser::name_or_number));
     }
 
     public NameOrNumber(IrpParser.Name_or_numberContext ctx) {
@@ -78,6 +78,10 @@ public final class NameOrNumber extends IrpObject implements Floatable {
         return thing.toIrpString(radix);
     }
 
+    boolean isNumber() {
+        return thing instanceof NumberWithDecimals;
+    }
+
     double toRawNumber() throws InvalidArgumentException {
         if (!(thing instanceof NumberWithDecimals))
             throw new InvalidArgumentException("NumberWithDecimals expected");
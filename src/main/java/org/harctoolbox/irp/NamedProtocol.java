@@ -378,6 +378,13 @@ public final class NamedProtocol extends Protocol implements HasPreferOvers,Comp
         return getDoubleWithSubstitute(userValue, minimumLeadout, IrCoreUtils.DEFAULT_MINIMUM_LEADOUT, override);
     }
 
+    /**
+     * @return true if the protocol has its own absolute or relative tolerance.
+     */
+    boolean hasOwnTolerances() {
+        return absoluteTolerance != null || relativeTolerance != null;
+    }
+
     public double getRelativeTolerance() {
         return getRelativeTolerance(null, false);
     }
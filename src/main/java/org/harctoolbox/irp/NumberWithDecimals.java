@@ -44,7 +44,7 @@ public final class NumberWithDecimals extends IrpObject implements Floatable {
     }
 
     public NumberWithDecimals(ParserDriver parserDriver) {
-        this(parserDriver.getParser().number_with_decimals());
+        this(parserDriver.parse(IrpParser::number_with_decimals));
     }
 
     @SuppressWarnings("null")
@@ -17,8 +17,10 @@ this program. If not, see http://www.gnu.org/licenses/.
 
 package org.harctoolbox.irp;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -26,6 +28,14 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.harctoolbox.ircore.ThisCannotHappenException;
 
+/**
+ * Collects the (possibly partially known) parameter values during recognition.
+ *
+ * <p>The names are mapped to dense slots by a {@link Slots} table, normally set up once per protocol, and shared between
+ * the clones. The values and bitmasks are stored in primitive arrays indexed by slot, so that cloning,
+ * which takes place for every alternative tried, just copies a few arrays.
+ * Names not present in the table are appended to it if owned, otherwise to a private copy of it.
+ */
 public final class ParameterCollector implements Cloneable {
 
     private final static Logger logger = Logger.getLogger(ParameterCollector.class.getName());
@@ -34,15 +44,44 @@ public final class ParameterCollector implements Cloneable {
 
     public final static ParameterCollector EMPTY = new ParameterCollector(new HashMap<>(0), null);
 
-    private HashMap<String, BitwiseParameter> map;
+    private Slots slots;
+    private boolean ownsSlots;
+    private long[] values;
+    private long[] bitmasks;
+    private boolean[] present;
+
+    /**
+     * Slots of the present names, in insertion order.
+     */
+    private int[] order;
+    private int size;
 
     private final Map<String, Long> parameterSpecBitmasks;
 
-    public ParameterCollector(int capacity, Map<String, Long>parameterSpecBitmasks) {
-        map = new LinkedHashMap<>(capacity);
+    private ParameterCollector(Slots slots, boolean ownsSlots, int capacity, Map<String, Long>parameterSpecBitmasks) {
+        this.slots = slots;
+        this.ownsSlots = ownsSlots;
+        capacity = Math.max(Math.max(slots.size(), capacity), 4);
+        values = new long[capacity];
+        bitmasks = new long[capacity];
+        present = new boolean[capacity];
+        order = new int[capacity];
+        size = 0;
         this.parameterSpecBitmasks = parameterSpecBitmasks;
     }
 
+    /**
+     * @param slots Table of names, shared, not to be appended to.
+     * @param parameterSpecBitmasks
+     */
+    ParameterCollector(Slots slots, Map<String, Long>parameterSpecBitmasks) {
+        this(slots, false, slots.size(), parameterSpecBitmasks);
+    }
+
+    public ParameterCollector(int capacity, Map<String, Long>parameterSpecBitmasks) {
+        this(parameterSpecBitmasks != null ? new Slots(parameterSpecBitmasks.keySet()) : new Slots(capacity), true, capacity, parameterSpecBitmasks);
+    }
+
     public ParameterCollector() {
         this(0, new HashMap<String, Long>(4));
     }
@@ -74,18 +113,46 @@ public final class ParameterCollector implements Cloneable {
     }
 
     ParameterCollector(ParameterSpecs parameterSpecs) {
-        this(new HashMap<>(4), parameterSpecs.bitmasks());
+        this(new Slots(0), true, 0, parameterSpecs.bitmasks());
+    }
+
+    private int slotOf(String name) {
+        int slot = slots.indexOf(name);
+        return slot >= 0 && slot < present.length && present[slot] ? slot : -1;
+    }
+
+    private int newSlot(String name) {
+        int slot = slots.indexOf(name);
+        if (slot < 0) {
+            if (!ownsSlots) {
+                slots = slots.copy();
+                ownsSlots = true;
+            }
+            slot = slots.add(name);
+        }
+        if (slot >= present.length) {
+            int capacity = Math.max(2 * present.length, slots.size());
+            values = Arrays.copyOf(values, capacity);
+            bitmasks = Arrays.copyOf(bitmasks, capacity);
+            present = Arrays.copyOf(present, capacity);
+        }
+        if (size == order.length)
+            order = Arrays.copyOf(order, 2 * order.length);
+        return slot;
     }
 
     void add(String name, BitwiseParameter parameter) throws ParameterInconsistencyException {
         logger.log(Level.FINER, "Assigning {0} = {1}", new Object[]{name, parameter});
-        BitwiseParameter oldParameter = map.get(name);
-        if (oldParameter == parameter)
-            return;
-        if (oldParameter != null) {
-            if (oldParameter.isConsistent(parameter)) {
-                oldParameter.aggregate(parameter);
+        int slot = slotOf(name);
+        if (slot >= 0) {
+            long bitmask = parameter.getBitmask();
+            long value = parameter.getValue();
+            if (((values[slot] ^ value) & bitmasks[slot] & bitmask) == 0L) {
+                values[slot] = (values[slot] & ~bitmask) | value;
+                bitmasks[slot] |= bitmask;
+                values[slot] &= bitmasks[slot];
             } else {
+                BitwiseParameter oldParameter = get(slot);
                 logger.log(Level.FINE, "Name inconsistency: {0}, new value: {1}, old value: {2}", new Object[]{name, parameter.toString(), oldParameter.toString()});
                 throw new ParameterInconsistencyException(name, parameter, oldParameter);
             }
@@ -103,82 +170,114 @@ public final class ParameterCollector implements Cloneable {
     }
 
     BitwiseParameter remove(String name) {
-        return map.remove(name);
+        int slot = slotOf(name);
+        if (slot < 0)
+            return null;
+        BitwiseParameter old = get(slot);
+        present[slot] = false;
+        int i = 0;
+        while (order[i] != slot)
+            i++;
+        System.arraycopy(order, i + 1, order, i, size - i - 1);
+        size--;
+        return old;
     }
 
     private void overwrite(String name, BitwiseParameter parameter) {
         logger.log(Level.FINER, "Overwriting {0} = {1}", new Object[]{name, parameter});
-        map.put(name, parameter);
+        int slot = newSlot(name);
+        values[slot] = parameter.getValue();
+        bitmasks[slot] = parameter.getBitmask();
+        present[slot] = true;
+        order[size++] = slot;
     }
 
     public Set<String> getNames() {
-        return map.keySet();
+        Set<String> names = new LinkedHashSet<>(size);
+        for (int i = 0; i < size; i++)
+            names.add(slots.name(order[i]));
+        return Collections.unmodifiableSet(names);
+    }
+
+    private BitwiseParameter get(int slot) {
+        return new BitwiseParameter(values[slot], bitmasks[slot]);
     }
 
+    /**
+     * Returns a copy of the collected parameter; changing it does not affect the collector.
+     * @param name
+     * @return BitwiseParameter, or null if not present.
+     */
     BitwiseParameter get(String name) {
-        return map.get(name);
+        int slot = slotOf(name);
+        return slot >= 0 ? get(slot) : null;
     }
 
     public long getValue(String name) {
-        return map.containsKey(name) ? map.get(name).getValue() : INVALID;
+        int slot = slotOf(name);
+        return slot >= 0 ? values[slot] : INVALID;
     }
 
     public NameEngine toNameEngine() {
-        NameEngine nameEngine = new NameEngine(map.size());
-        map.entrySet().forEach((kvp) -> {
-            String name = kvp.getKey();
-            BitwiseParameter parameter = kvp.getValue();
+        NameEngine nameEngine = new NameEngine(size);
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            String name = slots.name(slot);
+            BitwiseParameter parameter = get(slot);
             Long bitmask = parameterSpecBitmasks.get(name);
             if (/*!parameter.isEmpty() &&*/ parameter.isFinished(bitmask))
                 try {
-                    nameEngine.define(kvp.getKey(), parameter.getValue/*PreferExpected*/());
+                    nameEngine.define(name, parameter.getValue/*PreferExpected*/());
                 } catch (InvalidNameException ex) {
                     throw new ThisCannotHappenException(ex);
                 }
-        });
+        }
         return nameEngine;
     }
 
     void fixParameterSpecs(ParameterSpecs parameterSpecs) {
-        map.entrySet().forEach((kvp) -> {
-            String name = kvp.getKey();
-            BitwiseParameter parameter = kvp.getValue();
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            String name = slots.name(slot);
+            BitwiseParameter parameter = get(slot);
             Long bitmask = parameterSpecBitmasks.get(name);
             if (!parameter.isEmpty() && bitmask != null && parameter.isFinished(bitmask)) {
                 long val = parameter.getValue();
                 long modulus = 1L << parameter.length();
-                val = parameterSpecs.fixValue(name, val, modulus);
-                parameter.assign(val);
+                values[slot] = parameterSpecs.fixValue(name, val, modulus);
+                bitmasks[slot] = BitwiseParameter.ALLBITS;
             }
-        });
+        }
     }
 
     public Map<String, Long> collectedNames() {
-        Map<String, Long> names = new HashMap<>(map.size());
+        Map<String, Long> names = new HashMap<>(size);
         collectedNames(names);
         return names;
     }
 
     public void collectedNames(Map<String, Long> names) {
-        map.entrySet().forEach((kvp) -> {
-            BitwiseParameter parameter = kvp.getValue();
-            if (!parameter.isEmpty())
-                names.put(kvp.getKey(), parameter.getValue());
-        });
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            if (bitmasks[slot] != BitwiseParameter.NOBITS)
+                names.put(slots.name(slot), values[slot]);
+        }
     }
 
     void transferToNamesMap(Map<String, Long> nameEngine) {
-        map.entrySet().stream().forEach((kvp) -> {
-            nameEngine.put(kvp.getKey(), kvp.getValue().getValue());
-        });
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            nameEngine.put(slots.name(slot), values[slot]);
+        }
     }
 
     @Override
     public String toString() {
         StringJoiner str = new StringJoiner(";", "{", "}");
-        map.entrySet().stream().forEach((kvp) -> {
-            str.add(kvp.getKey() + "=" + kvp.getValue().toString());
-        });
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            str.add(slots.name(slot) + "=" + get(slot).toString());
+        }
         return str.toString();
     }
 
@@ -191,10 +290,13 @@ public final class ParameterCollector implements Cloneable {
         } catch (CloneNotSupportedException ex) {
             throw new InternalError(ex);
         }
-        result.map = new LinkedHashMap<>(10);
-        map.entrySet().stream().forEach((kvp) -> {
-            result.map.put(kvp.getKey(), new BitwiseParameter(kvp.getValue()));
-        });
+        // Both now share the table, so neither of them may append to it.
+        ownsSlots = false;
+        result.ownsSlots = false;
+        result.values = values.clone();
+        result.bitmasks = bitmasks.clone();
+        result.present = present.clone();
+        result.order = order.clone();
         return result;
     }
 
@@ -204,9 +306,10 @@ public final class ParameterCollector implements Cloneable {
     }
 
     void checkConsistency(RecognizeData recognizeData) throws NameUnassignedException, ParameterInconsistencyException {
-        for (Map.Entry<String, BitwiseParameter> kvp : map.entrySet()) {
-            String name = kvp.getKey();
-            BitwiseParameter param = kvp.getValue();
+        for (int i = 0; i < size; i++) {
+            int slot = order[i];
+            String name = slots.name(slot);
+            BitwiseParameter param = get(slot);
             Expression expression = recognizeData.nameEngine.get(name);
             BitwiseParameter expected = expression.toBitwiseParameter(recognizeData);
             if (!param.isConsistent(expected))
@@ -215,7 +318,7 @@ public final class ParameterCollector implements Cloneable {
     }
 
     public boolean contains(String name) {
-        return map.containsKey(name);
+        return slotOf(name) >= 0;
     }
 
     public Long getBitmask(String name) {
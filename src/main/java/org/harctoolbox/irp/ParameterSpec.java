@@ -50,7 +50,7 @@ public final class ParameterSpec extends IrpObject {
 
 
     public ParameterSpec(String str) {
-        this(new ParserDriver(str).getParser().parameter_spec());
+        this(ParserDriver.parseCached(ParserDriver.Rule.PARAMETER_SPEC, str));
     }
 
     public ParameterSpec(IrpParser.Parameter_specContext ctx) {
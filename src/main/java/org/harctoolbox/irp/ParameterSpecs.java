@@ -42,7 +42,7 @@ public final class ParameterSpecs extends IrpObject implements Iterable<Paramete
     }
 
     public ParameterSpecs(String parameter_specs) {
-        this(new ParserDriver(parameter_specs).getParser().parameter_specs());
+        this(ParserDriver.parseCached(ParserDriver.Rule.PARAMETER_SPECS, parameter_specs));
     }
 
     public ParameterSpecs(IrpParser.ProtocolContext ctx) {
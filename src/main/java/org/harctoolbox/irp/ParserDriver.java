@@ -17,17 +17,136 @@ this program. If not, see http://www.gnu.org/licenses/.
 
 package org.harctoolbox.irp;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 /**
  * This class encapsulates the IrpParser.
+ *
+ * <p>
+ * Parsing is done in two stages: First the (much) faster SLL prediction mode is tried,
+ * bailing out on the first error. Only if that fails, the input is parsed again using full LL,
+ * with the normal error strategy. The SLL result is used only if it consumed the entire input,
+ * in which case it is identical to the LL result.
+ *
+ * <p>
+ * Parse trees are stored in bounded caches, one per {@link Rule}, keyed by the source string.
+ * (The parse trees are never modified after being constructed.)
  */
 public final class ParserDriver {
 
+    private static final int CACHE_CAPACITY = 1000;
+
+    private static <T> Map<String, T> newCache() {
+        return Collections.synchronizedMap(new LinkedHashMap<String, T>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > CACHE_CAPACITY;
+            }
+        });
+    }
+
+    /**
+     * A parser rule, with a cache of ParserDrivers having parsed their input using it.
+     * @param <T> Type of the parse tree.
+     */
+    static final class Rule<T extends ParserRuleContext> {
+        static final Rule<IrpParser.ProtocolContext> PROTOCOL = new Rule<>(IrpParser::protocol);
+        static final Rule<IrpParser.ExpressionContext> EXPRESSION = new Rule<>(IrpParser::expression);
+        static final Rule<IrpParser.ExpressionEOFContext> EXPRESSION_EOF = new Rule<>(IrpParser::expressionEOF);
+        static final Rule<IrpParser.DefinitionContext> DEFINITION = new Rule<>(IrpParser::definition);
+        static final Rule<IrpParser.DefinitionsContext> DEFINITIONS = new Rule<>(IrpParser::definitions);
+        static final Rule<IrpParser.BitspecContext> BITSPEC = new Rule<>(IrpParser::bitspec);
+        static final Rule<IrpParser.Parameter_specContext> PARAMETER_SPEC = new Rule<>(IrpParser::parameter_spec);
+        static final Rule<IrpParser.Parameter_specsContext> PARAMETER_SPECS = new Rule<>(IrpParser::parameter_specs);
+
+        private static final List<Rule<?>> ALL = Arrays.asList(PROTOCOL, EXPRESSION, EXPRESSION_EOF, DEFINITION, DEFINITIONS,
+                BITSPEC, PARAMETER_SPEC, PARAMETER_SPECS);
+
+        private final Function<IrpParser, T> function;
+        private final Map<String, ParserDriver> cache = newCache();
+
+        private Rule(Function<IrpParser, T> function) {
+            this.function = function;
+        }
+    }
+
+    /**
+     * Returns a ParserDriver that has parsed its argument as a protocol, possibly from the cache.
+     * @param irpString
+     * @return ParserDriver, the parse tree is available through {@link #protocol()}.
+     */
+    public static ParserDriver newProtocolParserDriver(String irpString) {
+        return newParserDriver(Rule.PROTOCOL, irpString);
+    }
+
+    /**
+     * Returns a ParserDriver that has parsed its argument as an expression, possibly from the cache.
+     * @param str
+     * @return ParserDriver, the parse tree is available through {@link #expression()}.
+     */
+    public static ParserDriver newExpressionParserDriver(String str) {
+        return newParserDriver(Rule.EXPRESSION, str);
+    }
+
+    /**
+     * Returns a ParserDriver that has parsed its argument using the rule given, possibly from the cache of the rule.
+     * @param rule
+     * @param str
+     * @return ParserDriver, the parse tree is available through {@link #get(Rule)}.
+     * @throws ParseCancellationException if the input could not be parsed; this is not cached.
+     */
+    static ParserDriver newParserDriver(Rule<?> rule, String str) {
+        ParserDriver parserDriver = rule.cache.get(str);
+        if (parserDriver == null) {
+            parserDriver = new ParserDriver(str);
+            parserDriver.get(rule);
+            rule.cache.put(str, parserDriver);
+        }
+        return parserDriver;
+    }
+
+    /**
+     * Parses the argument using the rule given, possibly taking the parse tree from the cache of the rule.
+     * @param <T> Type of the parse tree
+     * @param rule
+     * @param str
+     * @return Parse tree
+     * @throws ParseCancellationException if the input could not be parsed
+     */
+    static <T extends ParserRuleContext> T parseCached(Rule<T> rule, String str) {
+        return newParserDriver(rule, str).get(rule);
+    }
+
+    /**
+     * Empties the caches of parse trees.
+     */
+    public static void clearCache() {
+        Rule.ALL.forEach((rule) -> {
+            rule.cache.clear();
+        });
+    }
+
     private final IrpLexer lexer;
     private final CommonTokenStream tokens;
     private final IrpParser parser;
+    private final Map<Rule<?>, ParserRuleContext> parseTrees = new HashMap<>(1);
 
     public ParserDriver(String irpString) {
         lexer = new IrpLexer(CharStreams.fromString(irpString));
@@ -36,12 +155,88 @@ public final class ParserDriver {
         parser.setErrorHandler(new ErrorStrategy());
     }
 
+    /**
+     * Parses the input from its beginning using the rule given as argument, using two-stage parsing.
+     * @param <T> Type of the parse tree
+     * @param rule Parser rule, like {@code IrpParser::protocol}.
+     * @return Parse tree
+     * @throws ParseCancellationException if the input could not be parsed
+     */
+    public synchronized <T extends ParserRuleContext> T parse(Function<IrpParser, T> rule) {
+        parser.reset();
+        T result = parseSll(rule);
+        if (result != null)
+            return result;
+
+        // SLL failed, either due to a syntax error, or since it was too weak; try again using full LL.
+        parser.reset();
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        return rule.apply(parser);
+    }
+
+    /**
+     * Returns the parse tree of the input using the rule given, parsing only the first time.
+     * @param <T> Type of the parse tree
+     * @param rule
+     * @return Parse tree
+     * @throws ParseCancellationException if the input could not be parsed
+     */
+    @SuppressWarnings("unchecked")
+    synchronized <T extends ParserRuleContext> T get(Rule<T> rule) {
+        T result = (T) parseTrees.get(rule);
+        if (result == null) {
+            result = parse(rule.function);
+            parseTrees.put(rule, result);
+        }
+        return result;
+    }
+
+    private <T extends ParserRuleContext> T parseSll(Function<IrpParser, T> rule) {
+        List<ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        try {
+            T result = rule.apply(parser);
+            // For rules not ending with EOF, SLL may accept a shorter prefix than LL would, so only trust complete parses.
+            return tokens.LA(1) == Token.EOF ? result : null;
+        } catch (ParseCancellationException ex) {
+            return null;
+        } finally {
+            parser.setErrorHandler(new ErrorStrategy());
+            listeners.forEach(parser::addErrorListener);
+        }
+    }
+
+    public IrpParser.ProtocolContext protocol() {
+        return get(Rule.PROTOCOL);
+    }
+
+    public IrpParser.ExpressionContext expression() {
+        return get(Rule.EXPRESSION);
+    }
+
+    public IrpParser.ExpressionEOFContext expressionEOF() {
+        return get(Rule.EXPRESSION_EOF);
+    }
+
+    public IrpParser.DefinitionContext definition() {
+        return get(Rule.DEFINITION);
+    }
+
+    public IrpParser.DefinitionsContext definitions() {
+        return get(Rule.DEFINITIONS);
+    }
+
     public String toStringTree() {
-        IrpParser.ProtocolContext protocol = parser.protocol();
-        return protocol != null ? protocol.toStringTree(parser) : null;
+        IrpParser.ProtocolContext protocolContext = protocol();
+        return protocolContext != null ? protocolContext.toStringTree(parser) : null;
     }
 
-    public IrpParser getParser() {
+    /**
+     * For rule names in printouts; parsing is to be done through {@link #parse(Function)} or {@link #get(Rule)}.
+     */
+    IrpParser getParser() {
         return parser;
     }
 }
@@ -0,0 +1,132 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.irp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.harctoolbox.ircore.IrSignal;
+
+/**
+ * Trie of the constant lead-ins of the protocols, i.e., the constant durations starting their first pass to be decoded
+ * (the intro, or, if empty, the repeat).
+ * Protocol families, like the NEC variants, share their lead-in, which is thus checked only once for the whole family.
+ * A protocol whose lead-in does not match at a position cannot match there, so it need not be tried.
+ *
+ * <p>Only protocols for which this is exactly true are entered: they must not allow chopping of durations (i.e. be interleaving),
+ * must use the tolerances of the DecoderParameters, and the lead-in must not extend to the end of the pass.
+ * The nodes are keyed by the durations' indices in a {@link DurationTable}.
+ */
+final class PrefixTrie {
+
+    /**
+     * Returns the lead-in of the protocol, encoded as 2 * index (+1 for gaps), or an empty array if it cannot be entered.
+     */
+    static int[] leadIn(NamedProtocol protocol, DurationTable table) {
+        if (!protocol.interleavingOk() || protocol.hasOwnTolerances())
+            return new int[0];
+
+        IrSignal.Pass pass = protocol.isEmpty(IrSignal.Pass.intro) ? IrSignal.Pass.repeat : IrSignal.Pass.intro;
+        List<IrStreamItem> items = protocol.normalBareIrStream(pass).getIrStreamItems();
+        int[] keys = new int[items.size()];
+        int length = 0;
+        // Leave at least one item, since the last duration may be a leadout.
+        for (int i = 0; i < items.size() - 1; i++) {
+            IrStreamItem item = items.get(i);
+            if (!(item instanceof Flash || item instanceof Gap))
+                break;
+            Duration duration = (Duration) item;
+            int index = duration.tableIndex(table, protocol.getGeneralSpec());
+            if (index < 0)
+                break;
+            keys[length++] = 2 * index + (duration.isOn() ? 0 : 1);
+        }
+        return Arrays.copyOf(keys, length);
+    }
+
+    private final Node root;
+    private final int size;
+
+    PrefixTrie(Collection<NamedProtocol> protocols, DurationTable table) {
+        root = new Node();
+        int n = 0;
+        for (NamedProtocol protocol : protocols) {
+            int[] keys = leadIn(protocol, table);
+            if (keys.length == 0)
+                continue;
+            Node node = root;
+            for (int key : keys)
+                node = node.children.computeIfAbsent(key, (k) -> new Node());
+            node.names.add(protocol.getName());
+            n++;
+        }
+        size = n;
+    }
+
+    /**
+     * @return Number of protocols in the trie.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the names of the protocols whose lead-in does not match at position.
+     * @param quantization Quantization of the sequence, with the tolerances of the DecoderParameters.
+     * @param position
+     * @param length Length of the sequence.
+     * @return Set of names, possibly empty.
+     */
+    Set<String> rejected(DurationTable.Quantization quantization, int position, int length) {
+        Set<String> result = new HashSet<>(16);
+        root.reject(quantization, position, length, result);
+        return result;
+    }
+
+    private static final class Node {
+
+        private final Map<Integer, Node> children = new LinkedHashMap<>(2);
+        private final List<String> names = new ArrayList<>(1);
+
+        private void reject(DurationTable.Quantization quantization, int position, int length, Set<String> result) {
+            children.entrySet().forEach((kvp) -> {
+                int key = kvp.getKey();
+                boolean on = key % 2 == 0;
+                boolean ok = position < length
+                        && (position % 2 == 0) == on
+                        && quantization.matches(position, key / 2);
+                if (ok)
+                    kvp.getValue().reject(quantization, position + 1, length, result);
+                else
+                    kvp.getValue().addAll(result);
+            });
+        }
+
+        private void addAll(Set<String> result) {
+            result.addAll(names);
+            children.values().forEach((child) -> {
+                child.addAll(result);
+            });
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.harctoolbox.irp;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -71,9 +72,11 @@ public class Protocol extends IrpObject implements AggregateLister {
 
     private final GeneralSpec generalSpec;
     private final ParameterSpecs parameterSpecs;
+    private final Slots parameterSlots;
     private final BitspecIrstream bitspecIrstream;
     private Variation normalFormVariation;
     private final NameEngine initialDefinitions;
+    private NameEngine slottedDefinitions;
     private NameEngine definitions;
     private final NameEngine memoryVariables;
     private Boolean interleavingFlash = null;
@@ -108,8 +111,9 @@ public class Protocol extends IrpObject implements AggregateLister {
         this.initialDefinitions = definitions;
         this.decoderClass = decoderClass;
         this.memoryVariables = new NameEngine();
-        initializeDefinitions();
         this.parameterSpecs = parameterSpecs != null ? parameterSpecs : new ParameterSpecs();
+        this.parameterSlots = new Slots(this.parameterSpecs.getNames());
+        setupDefinitions();
         computeNormalForm();
         irp = computeIrp(10);
     }
@@ -132,12 +136,12 @@ public class Protocol extends IrpObject implements AggregateLister {
      */
     // TODO: should throw a "real" exception if antlr parsing fails, now ParseCancellationException
     public Protocol(String irpString) throws UnsupportedRepeatException, NameUnassignedException, InvalidNameException, IrpInvalidArgumentException {
-        this(new ParserDriver(irpString));
+        this(ParserDriver.newProtocolParserDriver(irpString));
         this.irp = irpString;
     }
 
     private Protocol(ParserDriver parserDriver) throws UnsupportedRepeatException, NameUnassignedException, InvalidNameException, IrpInvalidArgumentException {
-        this(parserDriver.getParser().protocol());
+        this(parserDriver.protocol());
         this.parserDriver = parserDriver;
     }
 
@@ -146,7 +150,7 @@ public class Protocol extends IrpObject implements AggregateLister {
         parseTree.definitions().forEach((defs) -> {
             initialDefinitions.parseDefinitions(defs);
         });
-        initializeDefinitions();
+        setupDefinitions();
 
         for (ParameterSpec parameter : parameterSpecs) {
             if (parameter.hasMemory()) {
@@ -168,8 +172,20 @@ public class Protocol extends IrpObject implements AggregateLister {
         return decoderClass != null ? decoderClass.getSimpleName() : "";
     }
 
+    /**
+     * Sets up a slot table for all names of the protocol, shared by the copies of the definitions
+     * used for rendering and recognition.
+     */
+    private void setupDefinitions() {
+        Set<String> names = new LinkedHashSet<>(initialDefinitions.getNames());
+        names.addAll(parameterSpecs.getNames());
+        names.addAll(bitspecIrstream.assignmentVariables());
+        slottedDefinitions = new NameEngine(initialDefinitions, new Slots(names));
+        initializeDefinitions();
+    }
+
     private void initializeDefinitions() {
-        definitions = new NameEngine(initialDefinitions);
+        definitions = new NameEngine(slottedDefinitions);
     }
 
     public String toStringTree() {
@@ -605,7 +621,7 @@ public class Protocol extends IrpObject implements AggregateLister {
     public Map<String, Long> recognize(IrSignal irSignal, Decoder.DecoderParameters parameters) throws SignalRecognitionException, ProtocolNotDecodableException {
         checkFrequency(irSignal.getFrequencyWithDefault(), parameters);
         initializeDefinitions();
-        ParameterCollector parameterCollector = new ParameterCollector(definitions.size() + parameterSpecs.size(), parameterSpecs.bitmasks());
+        ParameterCollector parameterCollector = new ParameterCollector(parameterSlots, parameterSpecs.bitmasks());
 
         boolean matched = recognizeIntro(irSignal, parameters, parameterCollector);
         if (! matched)
@@ -671,7 +687,7 @@ public class Protocol extends IrpObject implements AggregateLister {
 
         checkFrequency(irSequence.getFrequencyWithDefault(), params);
         initializeDefinitions();
-        ParameterCollector names = new ParameterCollector();
+        ParameterCollector names = new ParameterCollector(parameterSlots, new HashMap<>(4));
         int pos = decode(names, irSequence, beginPos, IrSignal.Pass.intro, params);
         int noRepeatsMatched = 0;
         int oldPos;
@@ -717,7 +733,7 @@ public class Protocol extends IrpObject implements AggregateLister {
     protected void checkFrequency(Double frequency, Decoder.DecoderParameters params) throws SignalRecognitionException {
         logger.log(Level.FINER, "Expected frequency {0}, actual {1}, tolerance {2}", new Object[]{(int) getFrequencyWithDefault(), frequency.intValue(), params.getFrequencyTolerance().intValue()});
         boolean success = params.getFrequencyTolerance() < 0
-                || IrCoreUtils.approximatelyEquals(getFrequencyWithDefault(), frequency, params.getFrequencyTolerance(), 0.0);
+                || IrCoreUtils.approximatelyEquals(getFrequencyWithDefault(), (double) frequency, (double) params.getFrequencyTolerance(), 0.0);
         logger.log(Level.FINER, "Frequency was checked, {0}OK.", success ? "" : "NOT ");
         if (!success)
             throw new SignalRecognitionException("Frequency does not match");
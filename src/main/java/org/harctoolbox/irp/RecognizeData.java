@@ -18,12 +18,25 @@ this program. If not, see http://www.gnu.org/licenses/.
 package org.harctoolbox.irp;
 
 import java.util.logging.Level;
-import java.util.logging.LogRecord;
 import org.harctoolbox.ircore.IrSequence;
 import org.harctoolbox.ircore.IrSignal;
 
 public final class RecognizeData extends Traverser implements Cloneable {
 
+    private static volatile DecodeTracer decodeTracer = null;
+
+    /**
+     * Installs a tracer for the recognition of IrStreamItems, for debugging.
+     * @param tracer DecodeTracer, or null for no tracing (default).
+     */
+    public static void setDecodeTracer(DecodeTracer tracer) {
+        decodeTracer = tracer;
+    }
+
+    public static DecodeTracer getDecodeTracer() {
+        return decodeTracer;
+    }
+
     private int position;
     private double hasConsumed;
     private ParameterCollector parameterCollector;
@@ -37,6 +50,7 @@ public final class RecognizeData extends Traverser implements Cloneable {
     private final double minimumLeadout;
     private int level;
     private final IrSignal.Pass pass;
+    private DurationTable.Quantization quantization = null;
 
     public RecognizeData(GeneralSpec generalSpec, NameEngine definitions, ParameterSpecs parameterSpecs, IrSequence irSequence, int position,
             boolean interleaving, ParameterCollector parameterCollector, double absoluteTolerance, double relativeTolerance,
@@ -62,6 +76,9 @@ public final class RecognizeData extends Traverser implements Cloneable {
             ParameterCollector names, Decoder.DecoderParameters params, IrSignal.Pass pass) {
         this(generalSpec, definitions, parameterSpecs, irSequence, beginPos, interleavingOk, names,
                 params.getAbsoluteTolerance(), params.getRelativeTolerance(), params.getMinimumLeadout(), pass);
+        DurationTable.Quantizer quantizer = params.getQuantizer();
+        if (quantizer != null)
+            quantization = quantizer.get(irSequence, absoluteTolerance, relativeTolerance);
     }
 
     public RecognizeData() {
@@ -275,34 +292,27 @@ public final class RecognizeData extends Traverser implements Cloneable {
         return pass;
     }
 
-    LogRecord logRecordEnter(IrStreamItem item) {
-        return logRecord(item, true);
+    void traceEnter(IrStreamItem item) {
+        DecodeTracer tracer = decodeTracer;
+        if (tracer != null)
+            tracer.enter(item, this);
     }
 
-    LogRecord logRecordExit(IrStreamItem item) {
-        return logRecord(item, false);
+    void traceExit(IrStreamItem item) {
+        DecodeTracer tracer = decodeTracer;
+        if (tracer != null)
+            tracer.exit(item, this);
     }
 
-    private LogRecord logRecord(IrStreamItem item, boolean enter) {
-        LogRecord logRecord;
-        if (item instanceof Numerical && !enter) {
-            BitwiseParameter value = ((Numerical) item).toBitwiseParameter(this);
-            logRecord = new LogRecord(getLogLevel(), "{0}Level {1}: \"{2}\", result: {3}");
-            logRecord.setParameters(new Object[]{enter ? ">" : "<", level, item.toString(), value});
-            return logRecord;
-        }
-
-        logRecord = new LogRecord(getLogLevel(), "{0}Level {1}: \"{2}\"");
-        logRecord.setParameters(new Object[]{enter ? ">" : "<", level, item.toString()});
-
-        return logRecord;
+    /**
+     * @return Quantization of the IrSequence, or null if not available.
+     */
+    DurationTable.Quantization getQuantization() {
+        return quantization;
     }
 
-    public LogRecord logRecordEnterWithIrStream(IrStreamItem item) {
-        LogRecord logRecord= new LogRecord(getLogLevel(), "{0} {1}Level {2}: \"{3}\", IrSequence: {4}");
-        logRecord.setParameters(new Object[]{this.getPass().toString(), ">", level, item.toString(), this.irSequence});
-
-        return logRecord;
+    IrSequence getIrSequence() {
+        return irSequence;
     }
 
     public void assignment(String nameString, long val) throws InvalidNameException {
@@ -39,7 +39,7 @@ public final class RepeatMarker extends IrpObject {
     }
 
     private RepeatMarker(ParserDriver parserDriver) {
-        this(parserDriver.getParser().repeat_marker());
+        this(parserDriver.parse(IrpParser::repeat_marker));
     }
 
     public RepeatMarker(IrpParser.Repeat_markerContext ctx) {
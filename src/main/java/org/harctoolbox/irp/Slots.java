@@ -0,0 +1,94 @@
+/*
+Copyright (C) 2019 Bengt Martensson.
+
+This program is free software: you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 3 of the License, or (at
+your option) any later version.
+
+This program is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License along with
+this program. If not, see http://www.gnu.org/licenses/.
+*/
+
+package org.harctoolbox.irp;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mapping of names to dense slot numbers, normally set up once per protocol, and shared between
+ * the NameEngines and ParameterCollectors used for its recognition, which store their values in arrays indexed by slot.
+ *
+ * <p>Names are only appended, so a slot number, once assigned, never changes.
+ * A table may only be appended to by its single owner; a user that does not own its table
+ * instead continues with a {@link #copy()}, which it then owns.
+ */
+final class Slots {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private String[] names;
+    private int size;
+    private final Map<String, Integer> index;
+
+    Slots(int capacity) {
+        names = new String[Math.max(capacity, MIN_CAPACITY)];
+        size = 0;
+        index = new HashMap<>(2 * names.length);
+    }
+
+    Slots(Collection<String> names) {
+        this(names.size());
+        names.forEach(this::add);
+    }
+
+    private Slots(Slots orig) {
+        names = Arrays.copyOf(orig.names, Math.max(2 * orig.size, MIN_CAPACITY));
+        size = orig.size;
+        index = new HashMap<>(orig.index);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param name
+     * @return slot of the name, or -1 if not present.
+     */
+    int indexOf(String name) {
+        Integer slot = index.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    String name(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Appends the name, growing the capacity geometrically. Only to be called by the owner.
+     * @param name not present
+     * @return the new slot
+     */
+    int add(String name) {
+        if (size == names.length)
+            names = Arrays.copyOf(names, 2 * size);
+        names[size] = name;
+        index.put(name, size);
+        return size++;
+    }
+
+    /**
+     * @return A copy, with room to grow, to be owned by the caller.
+     */
+    Slots copy() {
+        return new Slots(this);
+    }
+}
@@ -42,7 +42,7 @@ public final class Variation extends IrpObject implements IrStreamItem {
     }
 
     public Variation(ParserDriver parserDriver) {
-        this(parserDriver.getParser().variation());
+        this(parserDriver.parse(IrpParser::variation));
     }
 
     public Variation(IrpParser.VariationContext variation) {
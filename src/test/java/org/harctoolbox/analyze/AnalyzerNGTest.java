@@ -1,5 +1,7 @@
 package org.harctoolbox.analyze;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrSequence;
@@ -59,4 +61,88 @@ public class AnalyzerNGTest {
         List<Protocol> list = analyzer.searchBestProtocol(analyzerParams);
         assertEquals(list.size(), 0);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test of searchAllProtocols method, of class Analyzer.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     * @throws org.harctoolbox.analyze.NoDecoderMatchException
+     */
+    @Test
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public void testSearchAllProtocols() throws InvalidArgumentException, NoDecoderMatchException {
+        System.out.println("searchAllProtocols");
+        List<IrSequence> sequences = Arrays.asList(new IrSequence(ALLDATA), new IrSequence(INTRODATA), new IrSequence(REPEATDATA), new IrSequence(ALLDATA));
+        Analyzer analyzer = new Analyzer(sequences, 38400d, true, null, null);
+        Analyzer.AnalyzerParams analyzerParams = new Analyzer.AnalyzerParams();
+        List<List<Protocol>> result = analyzer.searchAllProtocols(analyzerParams, null, false);
+        assertEquals(result.size(), sequences.size());
+        assertEquals(result.get(0).size(), result.get(3).size());
+        assertTrue(result.get(0).size() > 1);
+        for (int i = 0; i < result.get(0).size(); i++)
+            assertEquals(result.get(3).get(i).toIrpString(10), result.get(0).get(i).toIrpString(10));
+
+        List<Protocol> best = analyzer.searchBestProtocol(analyzerParams);
+        assertEquals(best.size(), sequences.size());
+        assertEquals(best.get(0).toIrpString(10), Analyzer.selectBestProtocol(result.get(0)).toIrpString(10));
+        assertEquals(best.get(0).toIrpString(10), best.get(3).toIrpString(10));
+
+        assertEquals(analyzer.searchAllProtocols(analyzerParams, "pwm", false).get(0).size(), 3);
+    }
+
+    /**
+     * Test of searchCommonProtocol method, of class Analyzer.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     * @throws org.harctoolbox.analyze.NoDecoderMatchException
+     */
+    @Test
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public void testSearchCommonProtocol() throws InvalidArgumentException, NoDecoderMatchException {
+        System.out.println("searchCommonProtocol");
+        List<IrSequence> sequences = Arrays.asList(new IrSequence(ALLDATA), new IrSequence(INTRODATA), new IrSequence(ALLDATA));
+        Analyzer analyzer = new Analyzer(sequences, 38400d, true, null, null);
+        Analyzer.AnalyzerParams analyzerParams = new Analyzer.AnalyzerParams();
+        List<Protocol> result = analyzer.searchCommonProtocol(analyzerParams, null, false);
+        assertEquals(result.size(), sequences.size());
+        for (Protocol protocol : result)
+            assertEquals(protocol.getDecoderName(), result.get(0).getDecoderName());
+        assertEquals(result.get(0).toIrpString(10), result.get(2).toIrpString(10));
+        assertEquals(result.get(0).getDecoderName(), analyzer.searchBestProtocol(analyzerParams).get(0).getDecoderName());
+    }
+
+    /**
+     * Test of addSequence method, of class Analyzer.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     * @throws org.harctoolbox.analyze.NoDecoderMatchException
+     */
+    @Test
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    public void testAddSequence() throws InvalidArgumentException, NoDecoderMatchException {
+        System.out.println("addSequence");
+        IrSequence.initRandom(4711);
+        IrSequence irSequence = new IrSequence(ALLDATA);
+        List<IrSequence> sequences = new ArrayList<>(6);
+        for (int i = 0; i < 6; i++)
+            sequences.add(irSequence.addNoise(40.0 * i));
+        Analyzer incremental = new Analyzer(sequences.get(0), 38400d, true);
+        for (int n = 1; n < sequences.size(); n++) {
+            incremental.addSequence(sequences.get(n));
+            Analyzer full = new Analyzer(sequences.subList(0, n + 1), 38400d, true, null, null);
+            assertEquals(incremental.getNoSequences(), n + 1);
+            assertEquals(incremental.toTimingsString(), full.toTimingsString());
+            assertEquals(incremental.getPairs().size(), full.getPairs().size());
+            List<Protocol> expected = full.searchBestProtocol(new Analyzer.AnalyzerParams());
+            List<Protocol> result = incremental.searchBestProtocol(new Analyzer.AnalyzerParams());
+            for (int i = 0; i <= n; i++) {
+                assertEquals(incremental.repeatFinderData(i).toString(), full.repeatFinderData(i).toString());
+                assertTrue(incremental.cleanedIrSequence(i).approximatelyEquals(full.cleanedIrSequence(i), 0.0, 0.0));
+                assertEquals(result.get(i).toIrpString(10), expected.get(i).toIrpString(10));
+            }
+        }
+
+        try {
+            new Analyzer(new IrSignal(new IrSequence(INTRODATA), new IrSequence(REPEATDATA), new IrSequence(), 38400d)).addSequence(irSequence);
+            fail();
+        } catch (UnsupportedOperationException ex) {
+        }
+    }
+}
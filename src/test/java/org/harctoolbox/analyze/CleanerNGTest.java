@@ -1,6 +1,17 @@
 package org.harctoolbox.analyze;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.TreeMap;
 import org.harctoolbox.ircore.InvalidArgumentException;
+import org.harctoolbox.ircore.IrCoreUtils;
 import org.harctoolbox.ircore.IrSequence;
 import org.harctoolbox.ircore.IrSignal;
 import org.harctoolbox.ircore.ModulatedIrSequence;
@@ -16,6 +27,7 @@ import org.testng.annotations.Test;
 
 @SuppressWarnings("UseOfSystemOutOrSystemErr")
 public class CleanerNGTest {
+    private final static String REFERENCE_FILE = "src/test/txt/cleaner-reference.txt";
     private final static String NEC_12_34_56 = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 06A4 015B 0057 0016 0E6C";
 
     @BeforeClass
@@ -116,6 +128,28 @@ public class CleanerNGTest {
         Assert.assertTrue(result.approximatelyEquals(irSequence));
     }
 
+    /**
+     * Test of getNumberPairs method, of class Cleaner.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testGetNumberPairs() throws InvalidArgumentException {
+        System.out.println("getNumberPairs");
+        Cleaner instance = new Cleaner(noisy, 60d, 0.2);
+        int[] durations = Cleaner.clean(noisy, 60d, 0.2).toInts();
+        int total = 0;
+        for (int flash : instance.getFlashes())
+            for (int gap : instance.getGaps()) {
+                int expected = 0;
+                for (int i = 0; i < durations.length; i += 2)
+                    if (durations[i] == flash && durations[i + 1] == gap)
+                        expected++;
+                assertEquals(instance.getNumberPairs(flash, gap), expected);
+                total += expected;
+            }
+        assertEquals(total, noisy.getLength() / 2);
+    }
+
     /**
      * Test of mkName method, of class Cleaner.
      */
@@ -140,4 +174,136 @@ public class CleanerNGTest {
         assertEquals(Cleaner.mkName(10000), "OUQ");
         assertEquals(Cleaner.mkName(26 * 26 * 26 * 26), "BAAAA");
     }
+
+    private static int[] randomDurations(Random random, int length) {
+        int[] timings = new int[2 + random.nextInt(6)];
+        for (int i = 0; i < timings.length; i++)
+            timings[i] = 200 + random.nextInt(5000);
+        int[] data = new int[length];
+        for (int i = 0; i < length; i++)
+            data[i] = random.nextInt(20) == 0
+                    ? 1 + random.nextInt(100000)
+                    : Math.max(1, timings[random.nextInt(timings.length)] + random.nextInt(201) - 100);
+        return data;
+    }
+
+    private static int[] addNoise(Random random, int[] data, int amplitude) {
+        int[] result = new int[data.length];
+        for (int i = 0; i < data.length; i++)
+            result[i] = Math.max(1, data[i] + random.nextInt(2 * amplitude + 1) - amplitude);
+        return result;
+    }
+
+    private static void summarize(List<String> lines, String title, Cleaner cleaner, double relativeTolerance) {
+        lines.add(title);
+        lines.add("histogram: " + new TreeMap<>(cleaner.getCleanedHistogram()));
+        lines.add("timings: " + cleaner.toTimingsString());
+        lines.add("flashes: " + cleaner.getFlashes());
+        lines.add("gaps: " + cleaner.getGaps());
+        StringJoiner sorted = new StringJoiner(" ");
+        for (int i = 0; i < cleaner.getNumberOfFlashes(); i++)
+            sorted.add(Integer.toString(cleaner.getFlashesSortedAfterFrequency(i)));
+        sorted.add("|");
+        for (int i = 0; i < cleaner.getNumberOfGaps(); i++)
+            sorted.add(Integer.toString(cleaner.getGapsSortedAfterFrequency(i)));
+        lines.add("sorted: " + sorted);
+        StringJoiner pairs = new StringJoiner(" ");
+        for (int flash : cleaner.getFlashes())
+            for (int gap : cleaner.getGaps()) {
+                int count = cleaner.getNumberPairs(flash, gap);
+                if (count > 0)
+                    pairs.add(flash + "," + gap + ":" + count);
+            }
+        lines.add("pairs: " + pairs);
+        lines.add("timebase: " + cleaner.getTimeBaseFromData(relativeTolerance));
+        lines.add("sequences: " + cleaner.getNoSequences());
+        if (cleaner.getNoSequences() > 1)
+            for (int i = 0; i < cleaner.getNoSequences(); i++)
+                lines.add(i + ": " + cleaner.toTimingsString(i));
+    }
+
+    private static void assertSameResults(Cleaner cleaner, Cleaner other, double relativeTolerance) {
+        List<String> expected = new ArrayList<>(16);
+        summarize(expected, "", other, relativeTolerance);
+        List<String> result = new ArrayList<>(16);
+        summarize(result, "", cleaner, relativeTolerance);
+        assertEquals(result, expected);
+        int length = other.toIrSequence().getLength();
+        assertEquals(Arrays.copyOf(cleaner.indexData, length), Arrays.copyOf(other.indexData, length));
+        assertEquals(cleaner.toIrSequence().toInts(), other.toIrSequence().toInts());
+    }
+
+    /**
+     * Test that Cleaner gives the same results as the earlier implementation, for real and random captures,
+     * with one or several sequences. The expected results were computed once by the earlier implementation.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testReference() throws InvalidArgumentException, IOException {
+        System.out.println("reference");
+        List<int[]> captures = new ArrayList<>(16);
+        captures.add(irSequence.toInts());
+        Random random = new Random(4711);
+        captures.add(addNoise(random, irSequence.toInts(), 60));
+        captures.add(addNoise(random, irSequence.toInts(), 200));
+        for (int i = 0; i < 10; i++)
+            captures.add(randomDurations(random, 2 + 2 * random.nextInt(100)));
+
+        List<String> result = new ArrayList<>(1000);
+        double[][] tolerances = { { IrCoreUtils.DEFAULT_ABSOLUTE_TOLERANCE, IrCoreUtils.DEFAULT_RELATIVE_TOLERANCE }, { 60, 0.2 }, { 0, 0.02 } };
+        for (double[] tolerance : tolerances) {
+            for (int i = 0; i < captures.size(); i++) {
+                Cleaner cleaner = new Cleaner(new IrSequence(captures.get(i)), tolerance[0], tolerance[1]);
+                summarize(result, "# " + tolerance[0] + " " + tolerance[1] + " capture " + i, cleaner, tolerance[1]);
+            }
+
+            // Several sequences, both given to the constructor, and added one at a time.
+            int[] all = new int[0];
+            int[] indices = new int[captures.size()];
+            Cleaner incremental = null;
+            for (int i = 0; i < captures.size(); i++) {
+                int[] data = captures.get(i);
+                all = Arrays.copyOf(all, all.length + data.length);
+                System.arraycopy(data, 0, all, all.length - data.length, data.length);
+                indices[i] = all.length;
+                if (incremental == null)
+                    incremental = new Cleaner(new IrSequence(data), tolerance[0], tolerance[1]);
+                else
+                    incremental.addSequence(new IrSequence(data));
+                Cleaner cleaner = new Cleaner(all.clone(), Arrays.copyOf(indices, i + 1), false, tolerance[0], tolerance[1]);
+                assertSameResults(incremental, cleaner, tolerance[1]);
+            }
+            summarize(result, "# " + tolerance[0] + " " + tolerance[1] + " all", incremental, tolerance[1]);
+        }
+        List<String> expected = Files.readAllLines(Paths.get(REFERENCE_FILE), StandardCharsets.UTF_8);
+        assertEquals(result, expected);
+    }
+
+    /**
+     * Test of addSequence method, of class Cleaner, with repeated captures of the same signal,
+     * which normally leave the partition into timings unchanged.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testAddSequenceRepeated() throws InvalidArgumentException {
+        System.out.println("addSequenceRepeated");
+        Random random = new Random(42);
+        List<int[]> captures = new ArrayList<>(32);
+        for (int i = 0; i < 30; i++)
+            captures.add(addNoise(random, irSequence.toInts(), 40));
+        Cleaner incremental = new Cleaner(new IrSequence(captures.get(0)));
+        int[] all = captures.get(0);
+        int[] indices = new int[captures.size()];
+        indices[0] = all.length;
+        for (int i = 1; i < captures.size(); i++) {
+            int[] data = captures.get(i);
+            incremental.addSequence(new IrSequence(data));
+            all = Arrays.copyOf(all, all.length + data.length);
+            System.arraycopy(data, 0, all, all.length - data.length, data.length);
+            indices[i] = all.length;
+            Cleaner cleaner = new Cleaner(all.clone(), Arrays.copyOf(indices, i + 1), false, null, null);
+            assertSameResults(incremental, cleaner, IrCoreUtils.DEFAULT_RELATIVE_TOLERANCE);
+        }
+    }
 }
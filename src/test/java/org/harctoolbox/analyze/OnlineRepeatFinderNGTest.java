@@ -0,0 +1,79 @@
+package org.harctoolbox.analyze;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.harctoolbox.ircore.InvalidArgumentException;
+import org.harctoolbox.ircore.IrSequence;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class OnlineRepeatFinderNGTest {
+
+    private static final int[] NEC1 = new int[] { 9008, 4516, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 1717, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 552, 1717, 552, 1717, 552, 1717, 552, 38902, 9008, 2289, 552, 31080, 9008, 2289, 552, 31080, 9008, 2289, 552, 21080 };
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    public OnlineRepeatFinderNGTest() {
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of add method, of class OnlineRepeatFinder.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testAdd() throws InvalidArgumentException {
+        System.out.println("add");
+        List<OnlineRepeatFinder.Event> events = new ArrayList<>(8);
+        OnlineRepeatFinder instance = new OnlineRepeatFinder((OnlineRepeatFinder.Event event, OnlineRepeatFinder finder) -> {
+            events.add(event);
+        });
+        IrSequence irSequence = new IrSequence(NEC1);
+        instance.add(irSequence);
+        assertEquals(instance.getNumberRepeats(), 3);
+        assertEquals(instance.getIntroLength(), 68);
+        assertEquals(instance.getRepeatLength(), 4);
+        assertEquals(instance.getEndingLength(), 0);
+        assertEquals(instance.getRepeatFinderData().toString(), new RepeatFinder(irSequence).getRepeatFinderData().toString());
+        assertEquals(instance.getRepeat().getLength(), 4);
+
+        instance.add(1000);
+        instance.add(50000);
+        instance.add(9008);
+        instance.add(2289);
+        instance.add(552);
+        assertEquals(instance.getEndingLength(), 2);
+        instance.flush();
+        assertEquals(instance.getEndingLength(), 4);
+        assertEquals(instance.getNumberRepeats(), 3);
+
+        assertEquals(events.size(), 6);
+        assertEquals(events.get(0), OnlineRepeatFinder.Event.frame);
+        assertEquals(events.get(3), OnlineRepeatFinder.Event.repeat);
+        assertEquals(events.get(4), OnlineRepeatFinder.Event.ending);
+
+        instance.reset();
+        assertFalse(instance.hasRepeat());
+        instance.add(irSequence.subSequence(0, 68));
+        assertEquals(instance.getIntroLength(), 68);
+        assertNull(instance.getRepeat());
+    }
+}
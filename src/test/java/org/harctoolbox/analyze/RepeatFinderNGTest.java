@@ -1,5 +1,6 @@
 package org.harctoolbox.analyze;
 
+import java.util.Random;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrSignal;
 import org.harctoolbox.ircore.ModulatedIrSequence;
@@ -141,4 +142,71 @@ public class RepeatFinderNGTest {
             assert(false);
         }
     }
+
+    private static ModulatedIrSequence randomRepeats(Random random, int introLength, int repeatLength, int repeats, int endingLength) throws OddSequenceLengthException {
+        int[] intro = randomDurations(random, introLength);
+        int[] repeat = randomDurations(random, repeatLength);
+        int[] ending = randomDurations(random, endingLength);
+        int[] data = new int[introLength + repeats * repeatLength + endingLength];
+        System.arraycopy(intro, 0, data, 0, introLength);
+        for (int r = 0; r < repeats; r++)
+            for (int i = 0; i < repeatLength; i++)
+                data[introLength + r * repeatLength + i] = repeat[i] + random.nextInt(20) - 10;
+        System.arraycopy(ending, 0, data, introLength + repeats * repeatLength, endingLength);
+        return new ModulatedIrSequence(data, 38000.0);
+    }
+
+    private static int[] randomDurations(Random random, int length) {
+        int[] data = new int[length];
+        for (int i = 0; i < length; i++)
+            data[i] = random.nextInt(8) == 0 ? 20000 + random.nextInt(20000) : 500 * (1 + random.nextInt(4));
+        if (length > 0)
+            data[length - 1] = 30000 + random.nextInt(30000);
+        return data;
+    }
+
+    /**
+     * Test that the gap indexed search finds the same as the exhaustive search.
+     * @throws org.harctoolbox.ircore.OddSequenceLengthException
+     */
+    @Test
+    public void testAnalyzeExhaustive() throws OddSequenceLengthException {
+        System.out.println("analyzeExhaustive");
+        Random random = new Random(4711L);
+        for (int i = 0; i < 100; i++) {
+            ModulatedIrSequence irSequence = randomRepeats(random, 2 * random.nextInt(20), 2 + 2 * random.nextInt(30), random.nextInt(6), 2 * random.nextInt(10));
+            RepeatFinder repeatFinder = new RepeatFinder(irSequence);
+            assertEquals(repeatFinder.getRepeatFinderData().toString(), repeatFinder.analyzeExhaustive().toString());
+        }
+
+        ModulatedIrSequence longSequence = randomRepeats(random, 68, 136, 20, 4);
+        RepeatFinder repeatFinder = new RepeatFinder(longSequence);
+        assertEquals(repeatFinder.getRepeatFinderData().toString(), repeatFinder.analyzeExhaustive().toString());
+        assertEquals(repeatFinder.getRepeatFinderData().getNumberRepeats(), 20);
+    }
+
+    private static long time(ModulatedIrSequence irSequence) {
+        long start = System.nanoTime();
+        RepeatFinder repeatFinder = new RepeatFinder(irSequence);
+        long time = System.nanoTime() - start;
+        assertEquals(repeatFinder.getRepeatFinderData().getNumberRepeats(), (irSequence.getLength() - 72) / 68);
+        return time;
+    }
+
+    /**
+     * Benchmark of held-button captures of increasing length: the time must grow no more than about quadratically.
+     * @throws org.harctoolbox.ircore.OddSequenceLengthException
+     */
+    @Test
+    public void testScaling() throws OddSequenceLengthException {
+        System.out.println("scaling");
+        Random random = new Random(42L);
+        ModulatedIrSequence small = randomRepeats(random, 68, 68, 100, 4);
+        ModulatedIrSequence large = randomRepeats(random, 68, 68, 300, 4);
+        time(small); // warm-up
+        long smallTime = time(small);
+        long largeTime = time(large);
+        System.out.println("Length " + small.getLength() + ": " + smallTime / 1000000 + "ms, length " + large.getLength() + ": " + largeTime / 1000000 + "ms");
+        assertTrue(largeTime < 12 * smallTime + 50000000L);
+    }
 }
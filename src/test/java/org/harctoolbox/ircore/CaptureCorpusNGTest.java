@@ -0,0 +1,146 @@
+package org.harctoolbox.ircore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class CaptureCorpusNGTest {
+
+    private static final String NEC1 = "0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 06FB 015B 0057 0016 0E6C";
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    private final IrSignal irSignal;
+    private final ModulatedIrSequence modulatedIrSequence;
+    private final IrSignal prontoSignal;
+
+    public CaptureCorpusNGTest() throws InvalidArgumentException, Pronto.NonProntoFormatException {
+        irSignal = new IrSignal(new int[]{9024, 4512, 564, 564, 564, 39756, 9024, 2256, 564, 96156}, 6, 4, 38400.0, 0.4);
+        modulatedIrSequence = new ModulatedIrSequence(new int[]{1000, 2000, 3000, 100000}, 36000.0);
+        prontoSignal = Pronto.parse(NEC1);
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    private File writeCorpus() throws IOException, InvalidArgumentException {
+        File file = File.createTempFile("corpus", "." + CaptureCorpus.DEFAULT_EXTENSION);
+        file.deleteOnExit();
+        try (CaptureCorpusWriter writer = new CaptureCorpusWriter(file.getPath())) {
+            writer.write("nec1", irSignal);
+            writer.write("modulated", modulatedIrSequence);
+            writer.write("pronto", prontoSignal);
+            assertEquals(writer.size(), 3);
+        }
+        return file;
+    }
+
+    /**
+     * Test of writing and random access reading, of class CaptureCorpusReader.
+     * @throws java.io.IOException
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testRandomAccess() throws IOException, InvalidArgumentException {
+        System.out.println("randomAccess");
+        File file = writeCorpus();
+        try (CaptureCorpusReader reader = new CaptureCorpusReader(file.getPath())) {
+            assertEquals(reader.size(), 3);
+            assertEquals(reader.getName(1), "modulated");
+            IrSignal signal = reader.getIrSignal(0);
+            assertTrue(signal.approximatelyEquals(irSignal));
+            assertEquals(signal.getIntroLength(), 6);
+            assertEquals(signal.getRepeatLength(), 4);
+            assertEquals(signal.getDutyCycle(), 0.4, 1e-6);
+            ModulatedIrSequence seq = reader.getModulatedIrSequence(1);
+            assertTrue(seq.approximatelyEquals(modulatedIrSequence));
+            assertEquals(reader.getIrSignal("pronto").getRepeatLength(), 4);
+            assertNull(reader.getIrSignal("nonexisting"));
+        }
+    }
+
+    /**
+     * Test of stream method, of class CaptureCorpusReader.
+     * @throws java.io.IOException
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testStream() throws IOException, InvalidArgumentException {
+        System.out.println("stream");
+        File file = writeCorpus();
+        try (CaptureCorpusReader reader = new CaptureCorpusReader(file.getPath())) {
+            List<String> names = reader.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+            assertEquals(names.size(), 3);
+            assertEquals(names.get(2), "pronto");
+            assertEquals(reader.streamModulatedIrSequences().mapToInt((kvp) -> kvp.getValue().getLength()).sum(), 10 + 4 + 72);
+        }
+    }
+
+    /**
+     * Test that non-corpus files are rejected.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testNotCorpus() throws IOException {
+        System.out.println("notCorpus");
+        File file = File.createTempFile("notcorpus", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("+100 -200 +300 -400 +500 -600\n".getBytes("US-ASCII"));
+        }
+        try (CaptureCorpusReader reader = new CaptureCorpusReader(file.getPath())) {
+            fail();
+        } catch (IOException ex) {
+        }
+    }
+
+    /**
+     * Test that the writer refuses to write files too large for the reader.
+     * @throws java.io.IOException
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testMaxFileSize() throws IOException, InvalidArgumentException {
+        System.out.println("maxFileSize");
+        File file = File.createTempFile("corpus", "." + CaptureCorpus.DEFAULT_EXTENSION);
+        file.deleteOnExit();
+        int written = 0;
+        try (CaptureCorpusWriter writer = new CaptureCorpusWriter(new FileOutputStream(file), 200)) {
+            try {
+                while (true) {
+                    writer.write("nec1", irSignal);
+                    written++;
+                }
+            } catch (IOException ex) {
+            }
+            assertEquals(writer.size(), written);
+        }
+        assertTrue(written > 0);
+        assertTrue(file.length() <= 200);
+        try (CaptureCorpusReader reader = new CaptureCorpusReader(file.getPath())) {
+            assertEquals(reader.size(), written);
+            assertTrue(reader.getIrSignal(written - 1).approximatelyEquals(irSignal));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.harctoolbox.ircore;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class DemodulatorNGTest {
+
+    private static final int NUMBER_FLASHES = 200;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    /**
+     * Creates a "logic analyzer" capture, modulated with 40kHz, duty cycle 0.4,
+     * consisting of flashes of varying length, separated by gaps of varying length.
+     */
+    private static IrSequence capture() throws OddSequenceLengthException {
+        int[] data = new int[NUMBER_FLASHES * 2 * 20];
+        int n = 0;
+        for (int flash = 0; flash < NUMBER_FLASHES; flash++) {
+            int pulses = 5 + flash % 13;
+            for (int p = 0; p < pulses - 1; p++) {
+                data[n++] = 10;
+                data[n++] = 15;
+            }
+            data[n++] = 10;
+            data[n++] = 500 + 100 * (flash % 7);
+        }
+        return new IrSequence(Arrays.copyOf(data, n));
+    }
+
+    public DemodulatorNGTest() {
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of demodulate method, of class Demodulator.
+     * @throws org.harctoolbox.ircore.OddSequenceLengthException
+     */
+    @Test
+    public void testDemodulate() throws OddSequenceLengthException {
+        System.out.println("demodulate");
+        IrSequence irSequence = capture();
+        Demodulator.Result sequential = new Demodulator(ModulatedIrSequence.DEFAULT_DEMODULATE_THRESHOLD, Integer.MAX_VALUE).demodulate(irSequence);
+        assertEquals(sequential.getChunks().size(), 1);
+        Demodulator.Result chunked = new Demodulator(ModulatedIrSequence.DEFAULT_DEMODULATE_THRESHOLD, 50).demodulate(irSequence);
+        List<Demodulator.Chunk> chunks = chunked.getChunks();
+        assertTrue(chunks.size() > 10);
+        assertEquals(chunks.get(chunks.size() - 1).getStart() + chunks.get(chunks.size() - 1).getInputLength(), irSequence.getLength());
+
+        ModulatedIrSequence expected = sequential.getModulatedIrSequence();
+        ModulatedIrSequence result = chunked.getModulatedIrSequence();
+        assertEquals(result.getLength(), 2 * NUMBER_FLASHES);
+        assertTrue(result.approximatelyEquals(expected, 0.0, 0.0, 0.0, 0.0));
+        assertEquals(result.getFrequency(), expected.getFrequency());
+        assertEquals(result.getDutyCycle(), expected.getDutyCycle());
+        assertEquals(result.getFrequency(), 40000.0, 0.001);
+        assertEquals(result.getDutyCycle(), 0.4, 0.00001);
+        for (Demodulator.Chunk chunk : chunks) {
+            assertEquals(chunk.getFrequency(), 40000.0, 0.001);
+            assertEquals(chunk.getDutyCycle(), 0.4, 0.00001);
+        }
+    }
+}
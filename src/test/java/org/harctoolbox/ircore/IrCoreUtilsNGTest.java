@@ -159,6 +159,33 @@ public class IrCoreUtilsNGTest {
         Assert.assertFalse(IrCoreUtils.approximatelyEquals(99, 101, 1, 0));
     }
 
+    /**
+     * Test of approximatelyEquals method on array segments, of class IrCoreUtils.
+     */
+    @Test
+    public void testApproximatelyEquals_arrays() {
+        System.out.println("approximatelyEquals");
+        double[] x = new double[40];
+        double[] y = new double[41];
+        int[] ix = new int[40];
+        int[] iy = new int[41];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = 100 * i + 50;
+            y[i + 1] = x[i] + 1;
+            ix[i] = (int) x[i];
+            iy[i + 1] = (int) y[i + 1];
+        }
+        Assert.assertTrue(IrCoreUtils.approximatelyEquals(x, 0, y, 1, 40, 1.0, 0.0));
+        Assert.assertFalse(IrCoreUtils.approximatelyEquals(x, 0, y, 1, 40, 0.5, 0.0));
+        Assert.assertTrue(IrCoreUtils.approximatelyEquals(x, 0, y, 1, 40, 0.0, 0.02));
+        Assert.assertTrue(IrCoreUtils.approximatelyEquals(ix, 0, iy, 1, 40, 1.0, 0.0));
+        Assert.assertFalse(IrCoreUtils.approximatelyEquals(ix, 0, iy, 1, 40, 0.0, 0.001));
+        Assert.assertTrue(IrCoreUtils.approximatelyEquals(ix, 30, iy, 31, 10, 0.0, 0.001));
+        y[35] = 5000;
+        Assert.assertFalse(IrCoreUtils.approximatelyEquals(x, 0, y, 1, 40, 1.0, 0.0));
+        Assert.assertTrue(IrCoreUtils.approximatelyEquals(x, 0, y, 1, 33, 1.0, 0.0));
+    }
+
       /**
      * Test of reverse method, of class IrCoreUtils.
      */
@@ -1,5 +1,10 @@
 package org.harctoolbox.ircore;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import static org.testng.Assert.*;
@@ -226,4 +231,93 @@ public class IrSequenceNGTest {
         result = IrSequence.normalize(in, 1234.0, false, ", ");
         assertEquals(result, "8900, 4450, 600, 1600, 600, 600, 600, 600, 600, 600, 600, 550, 650, 600, 600, 1234");
     }
+
+    /**
+     * Test of compact method, of class IrSequence.
+     * @throws org.harctoolbox.ircore.OddSequenceLengthException
+     */
+    @Test
+    public void testCompact() throws OddSequenceLengthException {
+        System.out.println("compact");
+        IrSequence integral = new IrSequence(raw);
+        assertTrue(integral.isCompact());
+        IrSequence fractional = new IrSequence(new double[] { 100.5, 200, 300, 400.25 });
+        assertFalse(fractional.isCompact());
+        IrSequence compact = fractional.compact();
+        assertTrue(compact.isCompact());
+        assertEquals(compact.toInts(), new int[] { 101, 200, 300, 400 });
+        assertEquals(fractional.toInts(), compact.toInts());
+
+        IrSequence shifted = integral.addToFlashes(0.5);
+        assertFalse(shifted.isCompact());
+        assertEquals(shifted.get(0), 1266.5);
+        assertTrue(integral.addToGaps(-26).isCompact());
+        assertEquals(integral.addToGaps(-26).get(1), 400.0);
+
+        IrSequence concatenated = IrSequence.concatenate(integral, fractional);
+        assertFalse(concatenated.isCompact());
+        assertEquals(concatenated.getLength(), integral.getLength() + fractional.getLength());
+        assertEquals(concatenated.get(integral.getLength()), 100.5);
+        assertTrue(IrSequence.concatenate(integral, integral).approximatelyEquals(integral.append(integral)));
+    }
+
+    /**
+     * Test of subSequence method, of class IrSequence, in particular copy-on-write.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testSubSequenceView() throws InvalidArgumentException {
+        System.out.println("subSequenceView");
+        IrSequence instance = new IrSequence(new int[] { 100, 0, 200, 300, 400, 0, 500, 600 });
+        IrSequence view = instance.subSequence(4, 4);
+        assertEquals(view.toInts(), new int[] { 400, 0, 500, 600 });
+        assertEquals(view.getTotalDuration(), 1500.0);
+        assertEquals(view.getLastGap(), (Double) 600.0);
+        IrSequence viewOfView = view.truncate(2);
+        assertEquals(viewOfView.toInts(), new int[] { 400, 0 });
+
+        assertTrue(view.replaceZeros(1.5));
+        assertEquals(view.toDoubles(), new double[] { 400, 1.5, 500, 600 });
+        assertEquals(instance.get(5), 0.0);
+        assertEquals(viewOfView.get(1), 0.0);
+
+        assertTrue(instance.replaceZeros(7));
+        assertEquals(instance.toInts(), new int[] { 100, 7, 200, 300, 400, 7, 500, 600 });
+        assertEquals(viewOfView.get(1), 0.0);
+        assertEquals(view.get(1), 1.5);
+
+        java.util.List<IrSequence> parts = instance.chop(300);
+        assertEquals(parts.size(), 2);
+        assertEquals(parts.get(1).toInts(), new int[] { 400, 7, 500, 600 });
+        assertEquals(new IrSequence(parts.get(1)).toInts(), parts.get(1).toInts());
+    }
+
+    /**
+     * Test of serialization, of class IrSequence.
+     * The blob was written by an earlier version, having only the double array as field.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testSerialization() throws Exception {
+        System.out.println("serialization");
+        String old = "rO0ABXNyACpvcmcuaGFyY3Rvb2xib3guaXJjb3JlLk1vZHVsYXRlZElyU2VxdWVuY2V2y+trtfrYDwIAAkwACWR1dHlDeWNsZXQAEkxqYXZhL2xhbmcvRG91YmxlO0wACWZyZXF1ZW5jeXEAfgABeHIAIW9yZy5oYXJjdG9vbGJveC5pcmNvcmUuSXJTZXF1ZW5jZaf7D2bcB54IAgABWwAEZGF0YXQAAltEeHB1cgACW0Q+powUq2NaHgIAAHhwAAAABkDBoAAAAAAAQLGgAAAAAABAgaAAAAAAAECacAAAAAAAQIGgAAAAAABA44gAAAAAAHNyABBqYXZhLmxhbmcuRG91YmxlgLPCSilr+wQCAAFEAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4cD/VHrhR64Ufc3EAfgAHQOLAAAAAAABzcQB+AAJ1cQB+AAUAAAAEQFkgAAAAAABAaQAAAAAAAEBywAAAAAAAQHkAAAAAAAA=";
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(old)))) {
+            ModulatedIrSequence modulated = (ModulatedIrSequence) in.readObject();
+            assertEquals(modulated.toInts(), new int[] { 9024, 4512, 564, 1692, 564, 40000 });
+            assertEquals(modulated.getFrequency(), 38400d, 0.001);
+            assertEquals(modulated.getDutyCycle(), 0.33, 0.00001);
+            IrSequence irSequence = (IrSequence) in.readObject();
+            assertEquals(irSequence.toDoubles(), new double[] { 100.5, 200, 300, 400 });
+        }
+
+        IrSequence view = new IrSequence(new int[] { 1, 2, 3, 4, 5, 6, 7, 8 }).subSequence(2, 4);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bos)) {
+            out.writeObject(view);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            IrSequence copy = (IrSequence) in.readObject();
+            assertEquals(copy.toInts(), new int[] { 3, 4, 5, 6 });
+        }
+    }
 }
@@ -341,4 +341,35 @@ public class MultiParserNGTest {
         IrSignal result = instance.toIrSignal(null, threshold);
         assertNull(result);
     }
+
+    /**
+     * Test of sniff method, of class MultiParser.
+     */
+    @Test
+    public void testSniff() {
+        System.out.println("sniff");
+        assertEquals(MultiParser.sniff(NEC1), MultiParser.Format.signedRaw);
+        assertEquals(MultiParser.sniff(NEC1CAPTURED), MultiParser.Format.signedRaw);
+        assertEquals(MultiParser.sniff(ORTEK_MCE_BRACKETED), MultiParser.Format.bracketedRaw);
+        assertEquals(MultiParser.sniff("Freq=38400Hz[+1 -2]"), MultiParser.Format.bracketedRaw);
+        assertEquals(MultiParser.sniff("  0000 006C 0000 0002 015B 00AD 0016 0016\n"), MultiParser.Format.prontoHex);
+        assertEquals(MultiParser.sniff("0000 006C 0000 0002 015B 00AD 0016 016"), MultiParser.Format.raw);
+        assertEquals(MultiParser.sniff("1000 2000 300 400"), MultiParser.Format.raw);
+        assertEquals(MultiParser.sniff(""), MultiParser.Format.raw);
+    }
+
+    /**
+     * Test of toIrSignal method, of class MultiParser, for the different formats.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test
+    public void testToIrSignalFormats() throws InvalidArgumentException {
+        System.out.println("toIrSignalFormats");
+        IrSignal bracketed = MultiParser.newIrCoreParser(ORTEK_MCE_BRACKETED).toIrSignal(38000.0, null);
+        IrSignal multiline = MultiParser.newIrCoreParser(ORTEK_MCE_MULTILINE).toIrSignal(38000.0, null);
+        assertTrue(bracketed.approximatelyEquals(multiline));
+        IrSignal twoParts = MultiParser.newIrCoreParser("[+1920 -480 +480 -480 +480 -48480][+1920 -480 +960 -48480]").toIrSignal(38000.0, null);
+        IrSignal pronto = MultiParser.newIrCoreParser(Pronto.toString(twoParts)).toIrSignal(null, null);
+        assertTrue(pronto.approximatelyEquals(twoParts, 10.0, 0.02, 100.0));
+    }
 }
@@ -0,0 +1,107 @@
+package org.harctoolbox.ircore;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class ThingsLineParserNGTest {
+
+    private static final String THINGS = "+100 -200\n"
+            + "\n"
+            + "garbage\n"
+            + "+300 -400 +500 -600\n";
+    private static final String ODD_THINGS = "+100 -200\n"
+            + "\n"
+            + "+100 -200 +300\n"
+            + "+300 -400 +500 -600\n";
+    private static final String NAMED_THINGS = "# comment\n"
+            + "first\n"
+            + "+100 -200\n"
+            + "\n"
+            + "second\n"
+            + "garbage\n"
+            + "\n"
+            + "third\n"
+            + "+300 -400\n"
+            + "+500 -600\n";
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    private final ThingsLineParser<IrSequence> parser;
+
+    public ThingsLineParserNGTest() {
+        parser = new ThingsLineParser<>((List<String> lines) -> new IrSequence(String.join(" ", lines)), "#");
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of streamThings method, of class ThingsLineParser.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testStreamThings() throws IOException {
+        System.out.println("streamThings");
+        try (Stream<IrSequence> stream = parser.streamThings(new StringReader(THINGS), false)) {
+            Iterator<IrSequence> iterator = stream.iterator();
+            assertTrue(iterator.hasNext());
+            assertEquals(iterator.next().getLength(), 2);
+            assertTrue(iterator.hasNext());
+            assertEquals(iterator.next().getLength(), 4);
+            assertFalse(iterator.hasNext());
+        }
+        List<IrSequence> list = parser.readThings(new StringReader(ODD_THINGS), false);
+        assertEquals(list.size(), 2);
+        assertEquals(list.get(1).getLastGap(), (Double) 600.0);
+    }
+
+    /**
+     * Test of readThings method, of class ThingsLineParser, with malformed numbers.
+     * @throws java.io.IOException
+     */
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void testReadThingsNumberFormat() throws IOException {
+        System.out.println("readThingsNumberFormat");
+        parser.readThings(new StringReader(THINGS), false);
+    }
+
+    /**
+     * Test of streamNamedThings method, of class ThingsLineParser.
+     * @throws java.io.IOException
+     */
+    @Test
+    public void testStreamNamedThings() throws IOException {
+        System.out.println("streamNamedThings");
+        try (Stream<Map.Entry<String, IrSequence>> stream = parser.streamNamedThings(new StringReader(NAMED_THINGS))) {
+            List<String> names = stream.map(Map.Entry::getKey).collect(Collectors.toList());
+            assertEquals(names.size(), 2);
+            assertEquals(names.get(0), "first");
+            assertEquals(names.get(1), "third");
+        }
+        Map<String, IrSequence> map = parser.readNamedThings(new StringReader(NAMED_THINGS));
+        assertEquals(map.get("third").getLength(), 4);
+    }
+}
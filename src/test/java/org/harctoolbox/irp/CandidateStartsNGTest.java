@@ -0,0 +1,114 @@
+package org.harctoolbox.irp;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.harctoolbox.ircore.IrSequence;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class CandidateStartsNGTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    private final List<NamedProtocol> protocols;
+    private final DurationTable table;
+    private final PrefixTrie prefixTrie;
+
+    public CandidateStartsNGTest() throws Exception {
+        Decoder decoder = new Decoder("NEC1", "RC5", "Sony12");
+        protocols = new ArrayList<>(decoder.getParsedProtocols());
+        table = new DurationTable(protocols);
+        prefixTrie = new PrefixTrie(protocols, table);
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of next method, of class CandidateStarts.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testNext() throws Exception {
+        System.out.println("next");
+        IrSequence irSequence = new IrSequence(new int[] { 100, 200, 300, 50000, 9024, 4512, 564, 40000, 400, 60000 });
+        CandidateStarts instance = new CandidateStarts(irSequence, 20000, table.quantize(irSequence, 100, 0.3), prefixTrie, protocols);
+        assertEquals(instance.size(), 3);
+        assertEquals(instance.next(0), 4);
+        assertEquals(instance.next(3), 4);
+        assertEquals(instance.next(4), 8);
+        assertEquals(instance.next(8), -1);
+    }
+
+    /**
+     * Test of rejected method, of class CandidateStarts.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRejected() throws Exception {
+        System.out.println("rejected");
+        IrSequence irSequence = new IrSequence(new int[] { 100, 200, 300, 50000, 9024, 4512, 564, 40000 });
+        DurationTable.Quantization quantization = table.quantize(irSequence, 100, 0.3);
+        CandidateStarts instance = new CandidateStarts(irSequence, 20000, quantization, prefixTrie, protocols);
+        assertEquals(instance.rejected(4), prefixTrie.rejected(quantization, 4, irSequence.getLength()));
+        assertFalse(instance.rejected(4).contains("NEC1"));
+        assertTrue(instance.rejected(0).contains("NEC1"));
+        assertSame(instance.rejected(0), instance.rejected(0));
+    }
+
+    /**
+     * Test of candidates method, of class CandidateStarts.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testCandidates() throws Exception {
+        System.out.println("candidates");
+        IrSequence irSequence = new IrSequence(new int[] { 100, 200, 300, 50000, 9024, 4512, 564, 40000 });
+        DurationTable.Quantization quantization = table.quantize(irSequence, 100, 0.3);
+        CandidateStarts instance = new CandidateStarts(irSequence, 20000, quantization, prefixTrie, protocols);
+        for (int position : new int[] { 0, 4 }) {
+            List<NamedProtocol> candidates = instance.candidates(position);
+            assertEquals(candidates.size() + instance.rejected(position).size(), protocols.size());
+            candidates.forEach((protocol) -> {
+                assertFalse(instance.rejected(position).contains(protocol.getName()));
+            });
+        }
+        assertTrue(instance.candidates(4).stream().anyMatch((protocol) -> protocol.getName().equals("NEC1")));
+        assertSame(instance.candidates(0), instance.candidates(0));
+    }
+
+    /**
+     * Test that next skips the frame starts where every protocol is rejected by its lead-in.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testNextFiltered() throws Exception {
+        System.out.println("nextFiltered");
+        List<NamedProtocol> nec = new ArrayList<>(new Decoder("NEC1").getParsedProtocols());
+        DurationTable necTable = new DurationTable(nec);
+        PrefixTrie necTrie = new PrefixTrie(nec, necTable);
+        assertEquals(necTrie.size(), 1);
+        IrSequence irSequence = new IrSequence(new int[] { 100, 200, 300, 50000, 400, 60000, 9024, 4512, 564, 40000, 400, 60000 });
+        CandidateStarts instance = new CandidateStarts(irSequence, 20000, necTable.quantize(irSequence, 100, 0.3), necTrie, nec);
+        assertEquals(instance.size(), 4);
+        assertTrue(instance.candidates(4).isEmpty());
+        assertEquals(instance.next(0), 6);
+        assertEquals(instance.next(6), -1);
+    }
+}
@@ -1,6 +1,12 @@
 package org.harctoolbox.irp;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 import org.harctoolbox.ircore.InvalidArgumentException;
 import org.harctoolbox.ircore.IrSequence;
 import org.harctoolbox.ircore.IrSignal;
@@ -131,6 +137,165 @@ public class DecoderNGTest {
         assertEquals(result.size(), 2);
     }
 
+    /**
+     * Test of decode and decodeIrSignal methods with int array argument, of class Decoder.
+     * @throws org.harctoolbox.ircore.InvalidArgumentException
+     */
+    @Test(enabled = true)
+    public void testDecode_intArray() throws InvalidArgumentException {
+        System.out.println("decode_intArray");
+        int[] intro = nec1Intro.toInts();
+        int[] repeat = nec1Repeat.toInts();
+        int[] durations = new int[2 + intro.length + repeat.length];
+        durations[0] = 1234;
+        durations[1] = -5678;
+        System.arraycopy(intro, 0, durations, 2, intro.length);
+        System.arraycopy(repeat, 0, durations, 2 + intro.length, repeat.length);
+        int[] original = durations.clone();
+        Decoder.DecoderParameters params = new Decoder.DecoderParameters();
+
+        Decoder.SimpleDecodesSet result = decoder.decodeIrSignal(durations, 2, intro.length, repeat.length, 0, 38400d, params);
+        Decoder.SimpleDecodesSet expected = decoder.decodeIrSignal(new IrSignal(nec1Intro, nec1Repeat, null, 38400d), params);
+        assertEquals(result.size(), expected.size());
+        assertEquals(result.first().toString(), expected.first().toString());
+        assertEquals(result.first().getName(), "NEC1");
+
+        Decoder.DecodeTree tree = decoder.decode(durations, 2, intro.length + repeat.length, 38400d, params);
+        Decoder.DecodeTree expectedTree = decoder.decode(new ModulatedIrSequence(IrSequence.concatenate(nec1Intro, nec1Repeat), 38400d), params);
+        assertEquals(tree.toString(), expectedTree.toString());
+        assertEquals(durations, original);
+
+        // Negative entry, causing a copy
+        tree = decoder.decode(durations, 0, durations.length, 38400d, params);
+        expectedTree = decoder.decode(new ModulatedIrSequence(new IrSequence(durations), 38400d), params);
+        assertEquals(tree.toString(), expectedTree.toString());
+        assertEquals(durations, original);
+        try {
+            decoder.decode(durations, 2, 3, 38400d, params);
+            fail();
+        } catch (OddSequenceLengthException ex) {
+        }
+    }
+
+    /**
+     * Test of decode method with ignoreLeadingGarbage, of class Decoder.
+     * @throws java.lang.Exception
+     */
+    @Test(enabled = true)
+    public void testDecode_ignoreLeadingGarbage() throws Exception {
+        System.out.println("decode_ignoreLeadingGarbage");
+        IrSequence garbage = new IrSequence(new int[] { 123, 456, 789, 50000, 234, 567, 890, 60000 });
+        ModulatedIrSequence irSequence = new ModulatedIrSequence(IrSequence.concatenate(garbage, nec1Intro), 38400d);
+        Decoder.DecoderParameters params = new Decoder.DecoderParameters();
+        assertTrue(decoder.decode(irSequence, params).isEmpty());
+        params.setIgnoreLeadingGarbage(true);
+        Decoder.DecodeTree tree = decoder.decode(irSequence, params);
+        assertFalse(tree.isEmpty());
+        Decoder.Decode expected = decoder.decode(new ModulatedIrSequence(nec1Intro, 38400d), params).toList().get(0);
+        assertEquals(tree.toList().get(0).getName(), expected.getName());
+        assertEquals(tree.toList().get(0).getMap(), expected.getMap());
+    }
+
+    /**
+     * Test of decodeIrSignal method with firstMatch, of class Decoder.
+     * @throws java.lang.Exception
+     */
+    @Test(enabled = true)
+    public void testDecodeIrSignalFirstMatch() throws Exception {
+        System.out.println("decodeIrSignalFirstMatch");
+        Random random = new Random(17);
+        Decoder.DecoderParameters params = new Decoder.DecoderParameters();
+        Decoder.DecoderParameters firstParams = new Decoder.DecoderParameters();
+        firstParams.setFirstMatch(true);
+        for (NamedProtocol protocol : decoder.getParsedProtocols()) {
+            IrSignal irSignal = protocol.toIrSignal(new NameEngine(protocol.randomParameters(random)));
+            Decoder.SimpleDecodesSet expected = decoder.decodeIrSignal(irSignal, params);
+            Decoder.SimpleDecodesSet result = decoder.decodeIrSignal(irSignal, firstParams);
+            assertTrue(result.size() <= 1);
+            assertEquals(result.isEmpty() ? null : result.first().toString(),
+                    expected.isEmpty() ? null : expected.first().toString(), protocol.getName());
+        }
+    }
+
+    @Test(enabled = true)
+    public void testDecodeTracer() throws Exception {
+        System.out.println("decodeTracer");
+        IrSignal irSignal = Pronto.parse("0000 006C 0022 0002 015B 00AD 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0041 0016 0016 0016 0016 0016 0016 0016 0041 0016 0016 0016 0016 0016 0016 0016 0016 0016 0041 0016 0041 0016 0041 0016 0016 0016 0041 0016 0041 0016 05F7 015B 0057 0016 0E6C");
+        int[] counts = new int[2];
+        RecognizeData.setDecodeTracer(new DecodeTracer() {
+            @Override
+            public void enter(IrStreamItem item, RecognizeData recognizeData) {
+                counts[0]++;
+            }
+
+            @Override
+            public void exit(IrStreamItem item, RecognizeData recognizeData) {
+                counts[1]++;
+            }
+        });
+        try {
+            Decoder.SimpleDecodesSet result = new Decoder("NEC1").decodeIrSignal(irSignal, new Decoder.DecoderParameters());
+            assertEquals(result.get("NEC1").toString(), "NEC1: {D=12,F=35}");
+        } finally {
+            RecognizeData.setDecodeTracer(null);
+        }
+        assertTrue(counts[0] > 0);
+        assertTrue(counts[1] > 0 && counts[1] <= counts[0]);
+    }
+
+    @Test(enabled = true)
+    public void testLoggingDecodeTracer() throws Exception {
+        System.out.println("loggingDecodeTracer");
+        IrSignal irSignal = new Decoder("NEC1").getParsedProtocols().iterator().next().toIrSignal(new NameEngine("{D=12,F=35}"));
+        List<LogRecord> durationRecords = new ArrayList<>(100);
+        List<LogRecord> flashRecords = new ArrayList<>(0);
+        Logger durationLogger = Logger.getLogger(Duration.class.getName());
+        Logger flashLogger = Logger.getLogger(Flash.class.getName());
+        Handler durationHandler = new RecordingHandler(durationRecords);
+        Handler flashHandler = new RecordingHandler(flashRecords);
+        Level oldLevel = durationLogger.getLevel();
+        durationLogger.setLevel(Level.ALL);
+        durationLogger.addHandler(durationHandler);
+        flashLogger.addHandler(flashHandler);
+        RecognizeData.setDecodeTracer(new LoggingDecodeTracer());
+        try {
+            Decoder.SimpleDecodesSet result = new Decoder("NEC1").decodeIrSignal(irSignal, new Decoder.DecoderParameters());
+            assertEquals(result.get("NEC1").toString(), "NEC1: {D=12,F=35}");
+        } finally {
+            RecognizeData.setDecodeTracer(null);
+            durationLogger.removeHandler(durationHandler);
+            flashLogger.removeHandler(flashHandler);
+            durationLogger.setLevel(oldLevel);
+        }
+        assertFalse(durationRecords.isEmpty());
+        durationRecords.forEach((logRecord) -> {
+            assertEquals(logRecord.getLoggerName(), Duration.class.getName());
+        });
+        assertTrue(flashRecords.isEmpty());
+    }
+
+    private static class RecordingHandler extends Handler {
+
+        private final List<LogRecord> records;
+
+        RecordingHandler(List<LogRecord> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     @Test(enabled = true)
     public void testDecodeGICable() {
         System.out.println("decodeGICable");
@@ -1,6 +1,10 @@
 package org.harctoolbox.irp;
 
+import java.util.Random;
+import org.harctoolbox.ircore.IrCoreUtils;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import org.testng.annotations.AfterClass;
@@ -139,4 +143,31 @@ public class DurationNGTest {
 //            return false;
 //        }
 //    }
+
+    /**
+     * Test of interval method, of class Duration.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testInterval() throws Exception {
+        System.out.println("interval");
+        GeneralSpec generalSpec = new GeneralSpec("{38k, 564}");
+        NameEngine nameEngine = new NameEngine("{A = 150}");
+        assertNull(Duration.newDuration("A").interval(generalSpec, 100, 0.3));
+        Random random = new Random(17);
+        for (String irp : new String[] { "1", "-3", "16", "-8", "889u", "-2.5m", "15p", "1u" }) {
+            Duration duration = Duration.newDuration(irp);
+            double wanted = duration.toFloat(generalSpec, nameEngine);
+            for (double[] tolerances : new double[][] { { 100, 0.3 }, { 0, 0.1 }, { 200, 0 }, { 60, 1.0 }, { 0, 0.0 } }) {
+                Duration.Interval interval = duration.interval(generalSpec, tolerances[0], tolerances[1]);
+                assertSame(duration.interval(generalSpec, tolerances[0], tolerances[1]), interval);
+                assertEquals(interval.getWanted(), wanted, 0.0001);
+                for (int i = 0; i < 1000; i++) {
+                    double actual = random.nextDouble() * 3 * wanted;
+                    assertEquals(interval.contains(actual), IrCoreUtils.approximatelyEquals(actual, wanted, tolerances[0], tolerances[1]));
+                }
+                assertTrue(interval.contains(wanted));
+            }
+        }
+    }
 }
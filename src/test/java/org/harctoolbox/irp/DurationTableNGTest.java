@@ -0,0 +1,74 @@
+package org.harctoolbox.irp;
+
+import java.util.Arrays;
+import org.harctoolbox.ircore.IrCoreUtils;
+import org.harctoolbox.ircore.IrSequence;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class DurationTableNGTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    private final DurationTable instance;
+
+    public DurationTableNGTest() throws Exception {
+        instance = new DurationTable(Arrays.asList(
+                new Protocol("{38.4k,564}<1,-1|1,-3>(16,-8,D:8,S:8,F:8,~F:8,1,^108m,(16,-4,1,^108m)*)[D:0..255,S:0..255=255-D,F:0..255]"),
+                new Protocol("{36k,msb,889}<1,-1|-1,1>((1,~F:1:6,T:1,D:5,F:6,^114m)*,T=1-T)[D:0..31,F:0..127,T@:0..1=0]")));
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of indexOf method, of class DurationTable.
+     */
+    @Test
+    public void testIndexOf() {
+        System.out.println("indexOf");
+        assertEquals(instance.size(), 7);
+        assertEquals(instance.indexOf(564d), 0);
+        assertEquals(instance.indexOf(889d), 1);
+        assertEquals(instance.indexOf(2256d), 4);
+        assertEquals(instance.indexOf(565d), -1);
+    }
+
+    /**
+     * Test of quantize method, of class DurationTable.
+     * @throws org.harctoolbox.ircore.OddSequenceLengthException
+     */
+    @Test
+    public void testQuantize() throws Exception {
+        System.out.println("quantize");
+        IrSequence irSequence = new IrSequence(new int[] { 1, 560, 600, 900, 1700, 1778, 2200, 4512, 9024, 100000, 700, 1000 });
+        double absoluteTolerance = 100d;
+        double relativeTolerance = 0.1;
+        DurationTable.Quantization quantization = instance.quantize(irSequence, absoluteTolerance, relativeTolerance);
+        for (int i = 0; i < irSequence.getLength(); i++)
+            for (int j = 0; j < instance.size(); j++)
+                assertEquals(quantization.matches(i, j),
+                        IrCoreUtils.approximatelyEquals(irSequence.get(i), instance.get(j), absoluteTolerance, relativeTolerance));
+
+        DurationTable.Quantizer quantizer = instance.newQuantizer();
+        DurationTable.Quantization q = quantizer.get(irSequence, absoluteTolerance, relativeTolerance);
+        assertSame(quantizer.get(irSequence, absoluteTolerance, relativeTolerance), q);
+        assertNotSame(quantizer.get(irSequence, absoluteTolerance, 0.2), q);
+    }
+}
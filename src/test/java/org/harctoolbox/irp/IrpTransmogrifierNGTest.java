@@ -2,7 +2,9 @@ package org.harctoolbox.irp;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -315,6 +317,16 @@ public class IrpTransmogrifierNGTest {
         assertEquals(result, "RECS80: {D=6,F=56,T=1}");
     }
 
+    @Test(enabled = true)
+    public void testDecodeFirstSequence() {
+        System.out.println("testDecodeFirstSequence");
+        String nec = "9024 4512 564 1692 564 1692 564 564 564 1692 564 564 564 1692 564 564 564 564 564 564 564 1692 564 564 564 564 564 1692 564 564 564 564 564 1692 564 564 564 1692 564 1692 564 564 564 564 564 1692 564 1692 564 1692 564 1692 564 564 564 564 564 1692 564 1692 564 564 564 564 564 564 564 40884";
+        String result = execute("decode --all " + nec);
+        assertTrue(result.contains("NEC-f16: {D=43,F=230,S=146}, beg=0, end=67"));
+        result = execute("decode --all --first " + nec);
+        assertEquals(result, "NEC: {D=43,F=230,S=146}, beg=0, end=67");
+    }
+
     @Test(enabled = true)
     public void testDecodeRecs80Multiple() {
         System.out.println("testDecodeRecs80Multiple");
@@ -697,4 +709,31 @@ public class IrpTransmogrifierNGTest {
         String result = execute("-c src/main/resources/IrpProtocols.xml --ienc utf-8 --oenc utf-8 decode  --namedinput src/test/txt/SIM2.txt");
         assertEquals(result, expected);
     }
+
+    /**
+     * Test that analyze --corpus analyzes all records of a corpus written from --input,
+     * although their names are all empty.
+     * @throws java.io.IOException
+     */
+    @Test(enabled = true)
+    public void testAnalyzeCorpus() throws IOException {
+        System.out.println("testAnalyzeCorpus");
+        File input = File.createTempFile("captures", ".txt");
+        input.deleteOnExit();
+        File corpus = File.createTempFile("captures", ".ircc");
+        corpus.deleteOnExit();
+        try (PrintStream out = new PrintStream(new FileOutputStream(input), false, "US-ASCII")) {
+            out.println(NEC1INTRO);
+            out.println(NEC1DITTO);
+            out.println(NEC1INTRO);
+        }
+        String result = execute("corpus --corpus " + corpus.getPath() + " --input " + input.getPath());
+        assertEquals(result, "3 signals written to " + corpus.getPath());
+        result = execute("analyze --corpus " + corpus.getPath());
+        String[] lines = result.split("\\r?\\n");
+        assertEquals(lines.length, 3);
+        for (int i = 0; i < lines.length; i++)
+            assertTrue(lines[i].startsWith("#" + i + "\t"), lines[i]);
+        assertEquals(lines[0].substring(3), lines[2].substring(3));
+    }
 }
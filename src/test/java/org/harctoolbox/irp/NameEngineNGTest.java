@@ -1,5 +1,7 @@
 package org.harctoolbox.irp;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.testng.Assert;
@@ -184,4 +186,34 @@ public class NameEngineNGTest {
             Logger.getLogger(NameEngineNGTest.class.getName()).log(Level.SEVERE, null, ex);
         }
     }
+
+    /**
+     * Test of copies sharing a slot table, of class NameEngine.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testSharedSlots() throws Exception {
+        System.out.println("sharedSlots");
+        Slots slots = new Slots(Arrays.asList("A", "B", "C", "D", "E", "F", "X"));
+        NameEngine slotted = new NameEngine(instance, slots);
+        assertEquals(slotted, instance);
+        assertEquals(slotted.toString(), instance.toString());
+
+        NameEngine copy = new NameEngine(slotted);
+        copy.define("X", 42L);
+        copy.define("Y", 43L); // not in the table
+        for (int i = 0; i < 100; i++)
+            copy.define("Z" + i, i);
+        assertEquals(new Name("X").toLong(copy), 42L);
+        assertEquals(new Name("Y").toLong(copy), 43L);
+        assertEquals(new Name("Z99").toLong(copy), 99L);
+        assertEquals(copy.size(), 108);
+
+        // The original and the shared table are not affected.
+        assertEquals(slotted, instance);
+        assertFalse(slotted.containsKey("X"));
+        assertFalse(slotted.containsKey("Y"));
+        assertEquals(slots.size(), 7);
+        assertEquals(new ArrayList<>(slotted.getNames()), Arrays.asList("A", "B", "C", "D", "E", "F"));
+    }
 }
@@ -1,5 +1,7 @@
 package org.harctoolbox.irp;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import org.harctoolbox.ircore.IrCoreUtils;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -145,4 +147,31 @@ public class ParameterCollectorNGTest {
         }
         assertEquals(instance.getValue(name), value);
     }
+
+    /**
+     * Test of clone and remove with a shared slot table, of class ParameterCollector.
+     * @throws org.harctoolbox.irp.ParameterInconsistencyException
+     */
+    @Test
+    public void testSlots() throws ParameterInconsistencyException {
+        System.out.println("slots");
+        Slots slots = new Slots(Arrays.asList("D", "S", "F"));
+        ParameterCollector instance = new ParameterCollector(slots, new HashMap<>(0));
+        instance.add("F", 3L, 3L);
+        instance.add("D", 7L);
+        ParameterCollector clone = instance.clone();
+        clone.add("F", 4L, 4L);
+        clone.add("T", 1L);
+        instance.add("U", 0L);
+        assertEquals(instance.getValue("F"), 3L);
+        assertEquals(clone.getValue("F"), 7L);
+        assertFalse(instance.contains("T"));
+        assertFalse(clone.contains("U"));
+        assertEquals(clone.getNames().toString(), "[F, D, T]");
+        assertEquals(clone.remove("D").getValue(), 7L);
+        assertEquals(clone.getNames().toString(), "[F, T]");
+        assertEquals(clone.getValue("D"), ParameterCollector.INVALID);
+        assertEquals(instance.getValue("D"), 7L);
+        assertEquals(slots.size(), 3);
+    }
 }
@@ -1,9 +1,14 @@
 package org.harctoolbox.irp;
 
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
 public class ParserDriverNGTest {
 
@@ -39,4 +44,55 @@ public class ParserDriverNGTest {
 //        String expResult = "(protocol (generalspec { (generalspec_list (generalspec_item (frequency_item (number_with_decimals (float_number 38 . 4)) k)) , (generalspec_item (unit_item (number_with_decimals (number 564))))) }) (bitspec_irstream (bitspec < (bare_irstream (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 1)))))) , (irstream_item (duration (gap_duration - (name_or_number (number_with_decimals (number 1))))))) | (bare_irstream (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 1)))))) , (irstream_item (duration (gap_duration - (name_or_number (number_with_decimals (number 3))))))) >) (irstream ( (bare_irstream (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 16)))))) , (irstream_item (duration (gap_duration - (name_or_number (number_with_decimals (number 8)))))) , (irstream_item (bitfield (primary_item (name D)) : (primary_item (number 8)))) , (irstream_item (bitfield (primary_item (name S)) : (primary_item (number 8)))) , (irstream_item (bitfield (primary_item (name F)) : (primary_item (number 8)))) , (irstream_item (bitfield ~ (primary_item (name F)) : (primary_item (number 8)))) , (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 1)))))) , (irstream_item (extent ^ (name_or_number (number_with_decimals (number 108))) m)) , (irstream_item (irstream ( (bare_irstream (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 16)))))) , (irstream_item (duration (gap_duration - (name_or_number (number_with_decimals (number 4)))))) , (irstream_item (duration (flash_duration (name_or_number (number_with_decimals (number 1)))))) , (irstream_item (extent ^ (name_or_number (number_with_decimals (number 108))) m))) ) (repeat_marker *)))) ))) (parameter_specs [ (parameter_spec (name D) : (number 0) .. (number 255)) , (parameter_spec (name S) : (number 0) .. (number 255) = (expression (expression (primary_item (number 255))) - (expression (primary_item (name D))))) , (parameter_spec (name F) : (number 0) .. (number 255)) ]))";
 //        Assert.assertEquals(result, expResult);
 //    }
+
+    /**
+     * Test of newProtocolParserDriver method, of class ParserDriver.
+     */
+    @Test
+    public void testNewProtocolParserDriver() {
+        System.out.println("newProtocolParserDriver");
+        String necIrp = "{38.4k,564}<1,-1|1,-3>(16,-8,D:8,S:8,F:8,~F:8,1,^108m,(16,-4,1,^108m)*) [D:0..255,S:0..255=255-D,F:0..255]";
+        ParserDriver.clearCache();
+        ParserDriver first = ParserDriver.newProtocolParserDriver(necIrp);
+        ParserDriver second = ParserDriver.newProtocolParserDriver(necIrp);
+        assertSame(second, first);
+        assertSame(second.protocol(), first.protocol());
+        assertEquals(first.protocol().getText(), new ParserDriver(necIrp).getParser().protocol().getText());
+    }
+
+    /**
+     * Test of parse method, of class ParserDriver.
+     */
+    @Test
+    public void testParse() {
+        System.out.println("parse");
+        ParserDriver instance = new ParserDriver("A*(B+3)");
+        IrpParser.ExpressionContext result = instance.parse(IrpParser::expression);
+        assertEquals(result.getText(), "A*(B+3)");
+    }
+
+    /**
+     * Test of parseCached method, of class ParserDriver.
+     */
+    @Test
+    public void testParseCached() {
+        System.out.println("parseCached");
+        ParserDriver.clearCache();
+        String definitions = "{C=F*4+D+3,X=A:4}";
+        IrpParser.DefinitionsContext first = ParserDriver.parseCached(ParserDriver.Rule.DEFINITIONS, definitions);
+        assertSame(ParserDriver.parseCached(ParserDriver.Rule.DEFINITIONS, definitions), first);
+        assertEquals(first.getText(), definitions);
+        String bitspec = "<1,-1|1,-3>";
+        assertSame(ParserDriver.parseCached(ParserDriver.Rule.BITSPEC, bitspec), ParserDriver.parseCached(ParserDriver.Rule.BITSPEC, bitspec));
+        ParserDriver.clearCache();
+        assertNotSame(ParserDriver.parseCached(ParserDriver.Rule.DEFINITIONS, definitions), first);
+        ParserDriver instance = new ParserDriver("A*(B+3)");
+        assertEquals(instance.parse(IrpParser::expression).getText(), instance.parse(IrpParser::expression).getText());
+    }
+
+    @Test(expectedExceptions = ParseCancellationException.class)
+    public void testParseError() {
+        System.out.println("parseError");
+        ParserDriver.newProtocolParserDriver("{38.4k,564}<1,-1|1,-3>(16,-8,D:8,S:8,F:8,~F:8,1,^108m,(16,-4,1,^108m)* [D:0..255]");
+    }
 }
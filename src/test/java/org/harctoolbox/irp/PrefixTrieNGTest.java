@@ -0,0 +1,91 @@
+package org.harctoolbox.irp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.harctoolbox.ircore.IrSignal;
+import org.harctoolbox.ircore.ModulatedIrSequence;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class PrefixTrieNGTest {
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    private final List<NamedProtocol> protocols;
+    private final DurationTable table;
+    private final PrefixTrie instance;
+
+    public PrefixTrieNGTest() throws Exception {
+        Decoder decoder = new Decoder();
+        protocols = new ArrayList<>(decoder.getParsedProtocols());
+        table = new DurationTable(protocols);
+        instance = new PrefixTrie(protocols, table);
+    }
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+    }
+
+    /**
+     * Test of leadIn method, of class PrefixTrie.
+     */
+    @Test
+    public void testLeadIn() {
+        System.out.println("leadIn");
+        assertTrue(instance.size() > protocols.size() / 3);
+        NamedProtocol nec1 = protocols.stream().filter((p) -> p.getName().equals("NEC1")).findFirst().get();
+        NamedProtocol nec2 = protocols.stream().filter((p) -> p.getName().equals("NEC2")).findFirst().get();
+        int[] leadIn = PrefixTrie.leadIn(nec1, table);
+        assertEquals(leadIn.length, 2);
+        assertEquals(PrefixTrie.leadIn(nec2, table), leadIn);
+        assertEquals(table.get(leadIn[0] / 2), 9024d, 0.001);
+    }
+
+    /**
+     * Test of rejected method, of class PrefixTrie.
+     * Every rejected protocol must fail to recognize.
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRejected() throws Exception {
+        System.out.println("rejected");
+        Random random = new Random(4711);
+        Decoder.DecoderParameters params = new Decoder.DecoderParameters();
+        int noRejected = 0;
+        for (NamedProtocol protocol : protocols) {
+            IrSignal irSignal = protocol.toIrSignal(new NameEngine(protocol.randomParameters(random)));
+            ModulatedIrSequence sequence = irSignal.toModulatedIrSequence();
+            DurationTable.Quantization quantization = table.quantize(sequence, params.getAbsoluteTolerance(), params.getRelativeTolerance());
+            Set<String> rejected = instance.rejected(quantization, 0, sequence.getLength());
+            assertFalse(rejected.contains(protocol.getName()), protocol.getName());
+            for (NamedProtocol other : protocols) {
+                if (rejected.contains(other.getName())) {
+                    noRejected++;
+                    try {
+                        other.recognize(sequence, 0, params);
+                        fail(other.getName() + " was rejected, but recognizes " + protocol.getName());
+                    } catch (SignalRecognitionException ex) {
+                    }
+                }
+            }
+        }
+        assertTrue(noRejected > protocols.size() * instance.size() / 2);
+    }
+}
@@ -269,6 +269,16 @@ public class ProtocolNGTest {
         assertTrue(nameEngine.numericallyEquals(recognizeData));
     }
 
+    @Test(enabled = true)
+    public void testRecognizeChoppedComplementedReversed() throws Exception {
+        System.out.println("recognizeChoppedComplementedReversed");
+        Protocol protocol = new Protocol("{38k,500,msb}<1,-1|1,-3>(16,-8,D:4:4,D:4,~F:-8,F:6:2,(D^F):8,1,^100m)[D:0..255,F:0..255]");
+        NameEngine nameEngine = new NameEngine("{D=165,F=60}");
+        IrSignal signal = protocol.toIrSignal(nameEngine);
+        Map<String, Long> recognizeData = protocol.recognize(signal);
+        assertTrue(nameEngine.numericallyEquals(recognizeData));
+    }
+
     @Test(enabled = true)
     public void testRecognizeNrc17AsSignal() throws Exception {
         System.out.println("recognizeNrc17AsSignal");